@@ -0,0 +1,55 @@
+package br.com.douglas444.streams.algorithms;
+
+import br.com.douglas444.streams.datastructures.SampleBlock;
+
+import java.util.Random;
+
+/** Weighted set of points summarizing a larger set of samples, in which the
+ * i-th point stands for weights[i] samples.
+ */
+public class Coreset {
+
+    private final SampleBlock points;
+    private final double[] weights;
+
+    public Coreset(final SampleBlock points, final double[] weights) {
+
+        if (weights.length != points.size()) {
+            throw new IllegalArgumentException();
+        }
+
+        this.points = points;
+        this.weights = weights;
+
+    }
+
+    /** Clusters the points with weighted {@link KMeansPlusPlus}. The
+     * assignments of the result refer to the points of the coreset.
+     */
+    public KMeansResult cluster(final int k, final Random random) {
+        return KMeansPlusPlus.execute(this.points, this.weights, k, random);
+    }
+
+    public double getTotalWeight() {
+
+        double total = 0;
+        for (double weight : this.weights) {
+            total += weight;
+        }
+        return total;
+
+    }
+
+    public SampleBlock getPoints() {
+        return points;
+    }
+
+    public double[] getWeights() {
+        return weights;
+    }
+
+    public int size() {
+        return points.size();
+    }
+
+}
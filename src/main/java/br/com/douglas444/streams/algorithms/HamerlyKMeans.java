@@ -0,0 +1,190 @@
+package br.com.douglas444.streams.algorithms;
+
+import br.com.douglas444.streams.datastructures.SampleBlock;
+import br.com.douglas444.streams.distance.DistanceKernel;
+import br.com.douglas444.streams.distance.DistanceKernels;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/** Lloyd iterations of {@link KMeans} accelerated with the triangle
+ * inequality, following Hamerly (2010). For each sample, an upper bound on
+ * the distance to its centroid and a lower bound on the distance to any other
+ * centroid are kept, and loosened by how much the centroids move in each
+ * update. A sample whose upper bound is below its lower bound, or below half
+ * the distance from its centroid to the closest other centroid, cannot change
+ * of cluster, so its distances are not computed. Once most assignments settle
+ * down, an iteration costs little more than the update step.
+ *
+ * The centroids are updated exactly as in KMeans, so the clustering is the
+ * same as the one of the plain version, except for samples equally distant
+ * from two centroids, which may keep their cluster where KMeans would move
+ * them to the centroid of lowest index.
+ */
+public final class HamerlyKMeans {
+
+    private HamerlyKMeans() {
+    }
+
+    public static KMeansResult execute(final SampleBlock samples, final int k, final Random random) {
+
+        final SampleBlock centroids = KMeans.chooseCentroids(samples, k, random);
+        return execute(samples, centroids, KMeans.DEFAULT_MAXIMUM_ITERATIONS, 0);
+
+    }
+
+    /** Same as {@link KMeans#execute(SampleBlock, SampleBlock, int, double)}.
+     */
+    public static KMeansResult execute(final SampleBlock samples,
+                                       final SampleBlock initialCentroids,
+                                       final int maximumIterations,
+                                       final double tolerance) {
+
+        if (initialCentroids.isEmpty() || maximumIterations < 1 || tolerance < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        final DistanceKernel kernel = DistanceKernels.get();
+        final double toleranceSquared = tolerance * tolerance;
+        final int n = samples.size();
+        final int d = samples.getDimensions();
+        int k = initialCentroids.size();
+
+        final double[] data = samples.getData();
+        final double[] centroids = Arrays.copyOf(initialCentroids.getData(), k * d);
+        final double[] oldCentroids = new double[k * d];
+        final double[] sums = new double[k * d];
+        final double[] counts = new double[k];
+        final int[] remap = new int[k];
+        final double[] drifts = new double[k];
+        final double[] halfDistancesToClosest = new double[k];
+
+        final int[] assignments = new int[n];
+        final double[] upperBounds = new double[n];
+        final double[] lowerBounds = new double[n];
+        Arrays.fill(assignments, -1);
+
+        int iterations = 0;
+        boolean converged = false;
+        boolean withinTolerance = false;
+
+        while (true) {
+
+            ++iterations;
+            boolean changed = false;
+
+            //Half the distance from each centroid to the closest other one
+            Arrays.fill(halfDistancesToClosest, 0, k, Double.POSITIVE_INFINITY);
+            for (int c = 0; c < k; ++c) {
+                for (int other = c + 1; other < k; ++other) {
+                    final double half = kernel.euclidean(centroids, c * d, centroids, other * d, d) / 2;
+                    halfDistancesToClosest[c] = Math.min(halfDistancesToClosest[c], half);
+                    halfDistancesToClosest[other] = Math.min(halfDistancesToClosest[other], half);
+                }
+            }
+
+            for (int i = 0; i < n; ++i) {
+
+                final int assigned = assignments[i];
+
+                if (assigned != -1) {
+
+                    final double bound = Math.max(halfDistancesToClosest[assigned], lowerBounds[i]);
+                    if (upperBounds[i] <= bound) {
+                        continue;
+                    }
+
+                    //Tightens the upper bound before resorting to a full scan
+                    upperBounds[i] = kernel.euclidean(data, i * d, centroids, assigned * d, d);
+                    if (upperBounds[i] <= bound) {
+                        continue;
+                    }
+                }
+
+                int closest = 0;
+                double closestDistance = Double.POSITIVE_INFINITY;
+                double secondDistance = Double.POSITIVE_INFINITY;
+
+                for (int c = 0; c < k; ++c) {
+                    final double distance = kernel.euclidean(data, i * d, centroids, c * d, d);
+                    if (distance < closestDistance) {
+                        secondDistance = closestDistance;
+                        closestDistance = distance;
+                        closest = c;
+                    } else if (distance < secondDistance) {
+                        secondDistance = distance;
+                    }
+                }
+
+                if (closest != assigned) {
+                    assignments[i] = closest;
+                    changed = true;
+                }
+                upperBounds[i] = closestDistance;
+                lowerBounds[i] = secondDistance;
+            }
+
+            if (!changed || withinTolerance) {
+                converged = true;
+                break;
+            }
+
+            if (iterations == maximumIterations) {
+                break;
+            }
+
+            Arrays.fill(sums, 0, k * d, 0);
+            Arrays.fill(counts, 0, k, 0);
+
+            for (int i = 0; i < n; ++i) {
+                final int c = assignments[i];
+                ++counts[c];
+                for (int j = 0; j < d; ++j) {
+                    sums[c * d + j] += data[i * d + j];
+                }
+            }
+
+            System.arraycopy(centroids, 0, oldCentroids, 0, k * d);
+            withinTolerance = KMeans.calculateShiftSquared(centroids, sums, counts, k, d) <= toleranceSquared;
+            final int kept = KMeans.moveCentroids(centroids, sums, counts, k, d, remap);
+
+            //How far each kept centroid moved, and the two largest moves
+            int farthest = -1;
+            double largestDrift = 0;
+            double secondLargestDrift = 0;
+            for (int c = 0; c < k; ++c) {
+                if (counts[c] > 0) {
+                    final int index = remap[c];
+                    drifts[index] = kernel.euclidean(oldCentroids, c * d, centroids, index * d, d);
+                    if (drifts[index] > largestDrift) {
+                        secondLargestDrift = largestDrift;
+                        largestDrift = drifts[index];
+                        farthest = index;
+                    } else if (drifts[index] > secondLargestDrift) {
+                        secondLargestDrift = drifts[index];
+                    }
+                }
+            }
+
+            //Dropped centroids had no samples, and dropping a centroid keeps
+            //the lower bounds valid
+            for (int i = 0; i < n; ++i) {
+                final int assigned = kept < k ? remap[assignments[i]] : assignments[i];
+                assignments[i] = assigned;
+                upperBounds[i] += drifts[assigned];
+                lowerBounds[i] -= assigned == farthest ? secondLargestDrift : largestDrift;
+            }
+
+            k = kept;
+        }
+
+        double sse = 0;
+        for (int i = 0; i < n; ++i) {
+            sse += kernel.squaredEuclidean(data, i * d, centroids, assignments[i] * d, d);
+        }
+
+        return new KMeansResult(KMeans.toSampleBlock(centroids, k, d), assignments, iterations, sse, converged);
+
+    }
+
+}
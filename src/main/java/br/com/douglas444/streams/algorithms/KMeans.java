@@ -2,14 +2,18 @@ package br.com.douglas444.streams.algorithms;
 
 import br.com.douglas444.streams.datastructures.Cluster;
 import br.com.douglas444.streams.datastructures.Sample;
+import br.com.douglas444.streams.datastructures.SampleBlock;
+import br.com.douglas444.streams.distance.NearestCandidateSearch;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
 public final class KMeans {
 
+    public static final int DEFAULT_MAXIMUM_ITERATIONS = 300;
+
     public static List<Cluster> execute(List<Sample> samples, final int k, final Random random) {
 
         samples = new ArrayList<>(samples);
@@ -18,28 +22,58 @@ public final class KMeans {
 
     }
 
-    public static List<Cluster> execute(List<Sample> samples, List<Sample> centroids) {
+    public static List<Cluster> execute(final List<Sample> samples, final List<Sample> centroids) {
+        return execute(samples, centroids, DEFAULT_MAXIMUM_ITERATIONS, 0);
+    }
 
-        samples = new ArrayList<>(samples);
-        centroids = new ArrayList<>(centroids);
+    /** Runs the Lloyd iterations of {@link #execute(SampleBlock, SampleBlock,
+     * int, double)} over copies of the samples and centroids in primitive
+     * arrays, and groups the given samples into the resulting clusters.
+     */
+    public static List<Cluster> execute(final List<Sample> samples,
+                                        final List<Sample> centroids,
+                                        final int maximumIterations,
+                                        final double tolerance) {
 
-        List<Cluster> clusters;
-        List<Sample> oldCentroids;
+        if (samples.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        do {
+        if (centroids.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
 
-            clusters = groupByClosestCentroid(samples, centroids);
-            oldCentroids = new ArrayList<>(centroids);
-            centroids.clear();
+        final KMeansResult result = execute(SampleBlock.of(samples), SampleBlock.of(centroids),
+                maximumIterations, tolerance);
 
-            clusters.stream()
-                    .filter(cluster -> !cluster.isEmpty())
-                    .map(Cluster::calculateCentroid)
-                    .forEach(centroids::add);
+        return toClusters(samples, result);
 
-        } while(!oldCentroids.containsAll(centroids));
+    }
+
+    /** Groups the given samples, in the order they were clustered, into the
+     * clusters of the result. Empty clusters are left out.
+     */
+    static List<Cluster> toClusters(final List<Sample> samples, final KMeansResult result) {
+
+        final List<List<Sample>> members = new ArrayList<>();
+        for (int i = 0; i < result.getCentroids().size(); ++i) {
+            members.add(new ArrayList<>());
+        }
+
+        final int[] assignments = result.getAssignments();
+        for (int i = 0; i < samples.size(); ++i) {
+            members.get(assignments[i]).add(samples.get(i));
+        }
+
+        final List<Cluster> clusters = new ArrayList<>();
+        members.forEach(samplesOfCluster -> {
+            if (!samplesOfCluster.isEmpty()) {
+                clusters.add(new Cluster(samplesOfCluster));
+            }
+        });
 
         return clusters;
+
     }
 
     static List<Sample> chooseCentroids(final List<Sample> samples, final int k, final Random random) {
@@ -61,34 +95,263 @@ public final class KMeans {
 
     }
 
-    static List<Cluster> groupByClosestCentroid(final List<Sample> samples, final List<Sample> centroids) {
+    public static double distanceToTheClosestCentroid(final Sample sample, List<Sample> centroids) {
+        if (centroids.isEmpty()) {
+            return 0.0;
+        }
+        final NearestCandidateSearch search = new NearestCandidateSearch();
+        search.search(sample.getX(), centroids);
+        return search.getDistance();
+    }
 
-        final HashMap<Sample, List<Sample>> samplesByCentroid = new HashMap<>();
+    public static KMeansResult execute(final SampleBlock samples, final int k, final Random random) {
 
-        centroids.forEach(centroid -> samplesByCentroid.put(centroid, new ArrayList<>()));
+        final SampleBlock centroids = chooseCentroids(samples, k, random);
+        return execute(samples, centroids);
 
-        samples.forEach(sample -> {
-            final Sample closestCentroid = sample.calculateClosestSample(centroids);
-            samplesByCentroid.get(closestCentroid).add(sample);
-        });
+    }
 
-        final List<Cluster> clusters = new ArrayList<>();
+    public static KMeansResult execute(final SampleBlock samples, final SampleBlock initialCentroids) {
+        return execute(samples, initialCentroids, DEFAULT_MAXIMUM_ITERATIONS, 0);
+    }
+
+    /** Runs Lloyd iterations over the samples, starting from the given
+     * centroids, until no sample changes of cluster, no centroid moves more
+     * than the tolerance in an iteration, or maximumIterations assignment
+     * steps are done. After a move within the tolerance, the samples are
+     * assigned once more, so that the result is consistent with the final
+     * centroids. Clusters left without samples are dropped.
+     *
+     * All buffers are allocated once, before the first iteration.
+     */
+    public static KMeansResult execute(final SampleBlock samples,
+                                       final SampleBlock initialCentroids,
+                                       final int maximumIterations,
+                                       final double tolerance) {
+        return execute(samples, null, initialCentroids, maximumIterations, tolerance);
+    }
+
+    /** Weighted form, in which each sample counts as weights[i] samples: the
+     * centroids are weighted means and the SSE a weighted sum. Weights must
+     * not be negative and must not all be zero, and a null array gives every
+     * sample weight one. A cluster whose samples all have weight zero keeps
+     * its centroid.
+     */
+    public static KMeansResult execute(final SampleBlock samples,
+                                       final double[] weights,
+                                       final SampleBlock initialCentroids,
+                                       final int maximumIterations,
+                                       final double tolerance) {
+
+        if (initialCentroids.isEmpty() || maximumIterations < 1 || tolerance < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        checkWeights(weights, samples.size());
+
+        final double toleranceSquared = tolerance * tolerance;
+        final int n = samples.size();
+        final int d = samples.getDimensions();
+        int k = initialCentroids.size();
+
+        final double[] centroids = Arrays.copyOf(initialCentroids.getData(), k * d);
+        final double[] sums = new double[k * d];
+        final double[] counts = new double[k];
+        final int[] remap = new int[k];
+        final int[] members = weights == null ? null : new int[k];
+        final int[] assignments = new int[n];
+        Arrays.fill(assignments, -1);
+
+        final double[] data = samples.getData();
+        final NearestCandidateSearch search = new NearestCandidateSearch();
+        int iterations = 0;
+        boolean converged = false;
+        boolean withinTolerance = false;
+        double sse;
+
+        while (true) {
 
-        samplesByCentroid.forEach((key, value) -> {
-            if (!value.isEmpty()) {
-                clusters.add(new Cluster(value));
+            ++iterations;
+            sse = 0;
+            boolean changed = false;
+
+            for (int i = 0; i < n; ++i) {
+
+                final int closest = search.search(data, i * d, centroids, k, d, Double.POSITIVE_INFINITY)
+                        ? search.getIndex() : 0;
+                final double closestDistance = search.getDistanceSquared();
+
+                if (assignments[i] != closest) {
+                    assignments[i] = closest;
+                    changed = true;
+                }
+                sse += weights == null ? closestDistance : weights[i] * closestDistance;
             }
-        });
 
-        return clusters;
+            if (!changed || withinTolerance) {
+                converged = true;
+                break;
+            }
+
+            if (iterations == maximumIterations) {
+                break;
+            }
+
+            Arrays.fill(sums, 0, k * d, 0);
+            Arrays.fill(counts, 0, k, 0);
+
+            for (int i = 0; i < n; ++i) {
+                final int c = assignments[i];
+                if (weights == null) {
+                    ++counts[c];
+                    for (int j = 0; j < d; ++j) {
+                        sums[c * d + j] += data[i * d + j];
+                    }
+                } else {
+                    final double weight = weights[i];
+                    ++members[c];
+                    counts[c] += weight;
+                    for (int j = 0; j < d; ++j) {
+                        sums[c * d + j] += weight * data[i * d + j];
+                    }
+                }
+            }
+
+            if (members != null) {
+                for (int c = 0; c < k; ++c) {
+                    //Clusters of weightless samples are not empty, so they stay in place
+                    if (counts[c] == 0 && members[c] > 0) {
+                        counts[c] = 1;
+                        System.arraycopy(centroids, c * d, sums, c * d, d);
+                    }
+                }
+                Arrays.fill(members, 0, k, 0);
+            }
+
+            withinTolerance = calculateShiftSquared(centroids, sums, counts, k, d) <= toleranceSquared;
+            final int kept = moveCentroids(centroids, sums, counts, k, d, remap);
+
+            if (kept < k) {
+                for (int i = 0; i < n; ++i) {
+                    assignments[i] = remap[assignments[i]];
+                }
+                k = kept;
+            }
+        }
+
+        return new KMeansResult(toSampleBlock(centroids, k, d), assignments, iterations, sse, converged);
 
     }
 
-    public static double distanceToTheClosestCentroid(final Sample sample, List<Sample> centroids) {
-        if (centroids.isEmpty()) {
-            return 0.0;
+    static void checkWeights(final double[] weights, final int n) {
+
+        if (weights == null) {
+            return;
         }
-        final Sample closestCentroid = sample.calculateClosestSample(centroids);
-        return sample.distance(closestCentroid);
+
+        if (weights.length < n) {
+            throw new IllegalArgumentException("Expected " + n + " weights, got " + weights.length);
+        }
+
+        double total = 0;
+        for (int i = 0; i < n; ++i) {
+            if (!(weights[i] >= 0)) {
+                throw new IllegalArgumentException("Weights must not be negative");
+            }
+            total += weights[i];
+        }
+
+        if (n > 0 && total == 0) {
+            throw new IllegalArgumentException("Weights must not all be zero");
+        }
+
+    }
+
+    /** Returns the largest squared distance a centroid with samples moves to
+     * the mean of its samples, given their sums and counts.
+     */
+    static double calculateShiftSquared(final double[] centroids,
+                                        final double[] sums,
+                                        final double[] counts,
+                                        final int k,
+                                        final int d) {
+
+        double shift = 0;
+
+        for (int c = 0; c < k; ++c) {
+            if (counts[c] > 0) {
+                double shiftOfCentroid = 0;
+                for (int j = 0; j < d; ++j) {
+                    final double difference = sums[c * d + j] / counts[c] - centroids[c * d + j];
+                    shiftOfCentroid += difference * difference;
+                }
+                shift = Math.max(shift, shiftOfCentroid);
+            }
+        }
+
+        return shift;
+
+    }
+
+    /** Moves the centroids to the mean of their samples, compacting them to
+     * drop the clusters without samples. Writes to remap the new index of
+     * each kept centroid and returns how many were kept.
+     */
+    static int moveCentroids(final double[] centroids,
+                             final double[] sums,
+                             final double[] counts,
+                             final int k,
+                             final int d,
+                             final int[] remap) {
+
+        int kept = 0;
+
+        for (int c = 0; c < k; ++c) {
+            if (counts[c] > 0) {
+                for (int j = 0; j < d; ++j) {
+                    centroids[kept * d + j] = sums[c * d + j] / counts[c];
+                }
+                remap[c] = kept++;
+            }
+        }
+
+        return kept;
+
+    }
+
+    static SampleBlock toSampleBlock(final double[] centroids, final int k, final int d) {
+
+        final SampleBlock block = new SampleBlock(d, k);
+        final double[] centroid = new double[d];
+        for (int c = 0; c < k; ++c) {
+            System.arraycopy(centroids, c * d, centroid, 0, d);
+            block.add(centroid, SampleBlock.NO_LABEL, 0);
+        }
+        return block;
+
+    }
+
+    static SampleBlock chooseCentroids(final SampleBlock samples, final int k, final Random random) {
+
+        final int n = samples.size();
+        final int[] candidates = new int[n];
+        for (int i = 0; i < n; ++i) {
+            candidates[i] = i;
+        }
+
+        final int count = Math.min(k, n);
+        final SampleBlock centroids = new SampleBlock(samples.getDimensions(), count);
+
+        //Partial Fisher-Yates shuffle: the first count candidates are the chosen ones
+        for (int i = 0; i < count; ++i) {
+            final int randomIndex = i + random.nextInt(n - i);
+            final int chosen = candidates[randomIndex];
+            candidates[randomIndex] = candidates[i];
+            candidates[i] = chosen;
+            centroids.add(samples.getX(chosen), SampleBlock.NO_LABEL, 0);
+        }
+
+        return centroids;
+
     }
 }
@@ -2,8 +2,14 @@ package br.com.douglas444.streams.algorithms;
 
 import br.com.douglas444.streams.datastructures.Cluster;
 import br.com.douglas444.streams.datastructures.Sample;
+import br.com.douglas444.streams.datastructures.SampleBlock;
+import br.com.douglas444.streams.distance.DistanceKernel;
+import br.com.douglas444.streams.distance.DistanceKernels;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 public final class KMeansPlusPlus {
 
@@ -23,57 +29,143 @@ public final class KMeansPlusPlus {
 
         final List<Sample> centroids = new ArrayList<>();
 
-        for (int i = 0; i < k; ++i) {
-            Sample centroid = selectNextCentroid(samples, centroids, random);
-            centroids.add(centroid);
+        if (samples.isEmpty()) {
+            return centroids;
+        }
+
+        final SampleBlock block = SampleBlock.of(samples);
+        final int[] indexes = chooseCentroidIndexes(block.getData(), null, block.size(), block.getDimensions(),
+                k, random);
+
+        for (int index : indexes) {
+            centroids.add(samples.get(index));
         }
 
         return centroids;
 
     }
 
-    private static Sample selectNextCentroid(final List<Sample> samples,
-                                             final List<Sample> centroids,
-                                             final Random random) {
+    public static KMeansResult execute(final SampleBlock samples,
+                                       final int k,
+                                       final Random random) {
+
+        final SampleBlock centroids = chooseCentroids(samples, k, random);
+        return KMeans.execute(samples, centroids);
+
+    }
+
+    /** Weighted form, in which each sample counts as weights[i] samples both
+     * in the seeding and in {@link KMeans#execute(SampleBlock, double[],
+     * SampleBlock, int, double)}. Weights must not be negative and must not
+     * all be zero.
+     */
+    public static KMeansResult execute(final SampleBlock samples,
+                                       final double[] weights,
+                                       final int k,
+                                       final Random random) {
+
+        KMeans.checkWeights(weights, samples.size());
 
-        final HashMap<Sample, Double> probabilityBySample = mapProbabilityBySample(samples, centroids);
-        final List<Map.Entry<Sample, Double>> entries = new ArrayList<>(probabilityBySample.entrySet());
-        final Iterator<Map.Entry<Sample, Double>> iterator = entries.iterator();
+        final int[] indexes = chooseCentroidIndexes(samples.getData(), weights, samples.size(),
+                samples.getDimensions(), k, random);
 
-        double cumulativeProbability = 0;
-        Sample selected = null;
-        final double r = random.nextDouble();
+        final SampleBlock centroids = new SampleBlock(samples.getDimensions(), k);
+        for (int index : indexes) {
+            centroids.add(samples.getX(index), SampleBlock.NO_LABEL, 0);
+        }
 
-        while (selected == null) {
+        return KMeans.execute(samples, weights, centroids, KMeans.DEFAULT_MAXIMUM_ITERATIONS, 0);
 
-            final Map.Entry<Sample, Double> entry = iterator.next();
+    }
 
-            cumulativeProbability += entry.getValue();
+    static SampleBlock chooseCentroids(final SampleBlock samples,
+                                       final int k,
+                                       final Random random) {
 
-            if (r <= cumulativeProbability || !iterator.hasNext()) {
-                selected = entry.getKey();
+        final int[] indexes = chooseCentroidIndexes(samples.getData(), null, samples.size(), samples.getDimensions(),
+                k, random);
+
+        final SampleBlock centroids = new SampleBlock(samples.getDimensions(), k);
+        for (int index : indexes) {
+            centroids.add(samples.getX(index), SampleBlock.NO_LABEL, 0);
+        }
+        return centroids;
+
+    }
+
+    /** Chooses k of the n rows of dimension d in data as centroids, each with
+     * probability proportional to its weight times its squared distance to the
+     * closest centroid chosen so far (D^2 weighting), and the first one with
+     * probability proportional to its weight. A null weights array gives every
+     * row weight one.
+     *
+     * The squared distances are kept in a primitive array updated once per
+     * chosen centroid, and each choice is a binary search over their
+     * cumulative sums, so the seeding costs O(n * k * d). When every row
+     * coincides with a chosen centroid, the next one is chosen uniformly.
+     */
+    static int[] chooseCentroidIndexes(final double[] data,
+                                       final double[] weights,
+                                       final int n,
+                                       final int d,
+                                       final int k,
+                                       final Random random) {
+
+        if (n == 0) {
+            throw new IllegalArgumentException();
+        }
+
+        final DistanceKernel kernel = DistanceKernels.get();
+        final int[] chosen = new int[k];
+        final double[] distances = new double[n];
+        final double[] cumulative = new double[n];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+
+        for (int c = 0; c < k; ++c) {
+
+            double total = 0;
+            for (int i = 0; i < n; ++i) {
+                final double weight = weights == null ? 1 : weights[i];
+                total += c == 0 ? weight : weight * distances[i];
+                cumulative[i] = total;
             }
 
+            final int selected;
+            if (total > 0) {
+                selected = search(cumulative, n, random.nextDouble() * total);
+            } else {
+                selected = random.nextInt(n);
+            }
+            chosen[c] = selected;
+
+            for (int i = 0; i < n; ++i) {
+                distances[i] = Math.min(distances[i],
+                        kernel.squaredEuclidean(data, i * d, data, selected * d, d, distances[i]));
+            }
         }
 
-        return selected;
+        return chosen;
 
     }
 
-    private static HashMap<Sample, Double> mapProbabilityBySample(final List<Sample> samples,
-                                                                  final List<Sample> centroids) {
+    /** Returns the first index whose cumulative sum is greater than the value,
+     * skipping rows of zero weight.
+     */
+    private static int search(final double[] cumulative, final int n, final double value) {
 
-        final HashMap<Sample, Double> probabilityBySample = new HashMap<>();
+        int low = 0;
+        int high = n - 1;
 
-        samples.forEach(sample ->
-                probabilityBySample.put(sample, Math.pow(KMeans.distanceToTheClosestCentroid(sample, centroids), 2)));
-
-        final double sum = probabilityBySample.values().stream().reduce(0.0, Double::sum);
-        probabilityBySample.replaceAll((sample, probability) -> probability / sum);
-        //TODO Replace the line above by the commented line below
-        //probabilityBySample.replaceAll((sample, probability) -> probability / (sum == 0 ? 1 : sum));
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (cumulative[middle] > value) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
 
-        return probabilityBySample;
+        return low;
 
     }
 
@@ -0,0 +1,140 @@
+package br.com.douglas444.streams.algorithms;
+
+import br.com.douglas444.streams.datastructures.Cluster;
+import br.com.douglas444.streams.datastructures.Sample;
+import br.com.douglas444.streams.datastructures.SampleBlock;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/** Runs several KMeans restarts, each seeded with KMeans++, concurrently on a
+ * {@link ForkJoinPool}, and keeps the clustering with the lowest SSE.
+ *
+ * Each restart draws from its own generator, seeded up front from the given
+ * one. At most as many restarts as the pool has workers are in flight at
+ * once, a new one being submitted as each result is examined. The results
+ * are examined in restart order, and the run stops once patience restarts in
+ * a row did not lower the best SSE, skipping the restarts not yet started
+ * and waiting for the ones already running. Since neither the restarts nor
+ * the stopping point depend on which restarts finished first, the result is
+ * the same for any pool size.
+ */
+public final class KMeansRestarts {
+
+    private KMeansRestarts() {
+    }
+
+    /** Runs up to restarts restarts, all of which are examined if patience is
+     * at least restarts.
+     */
+    public static KMeansResult execute(final SampleBlock samples,
+                                       final int k,
+                                       final int restarts,
+                                       final int patience,
+                                       final Random random,
+                                       final ForkJoinPool pool) {
+
+        if (samples.isEmpty() || k < 1 || restarts < 1 || patience < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        final long[] seeds = new long[restarts];
+        for (int i = 0; i < restarts; ++i) {
+            seeds[i] = random.nextLong();
+        }
+
+        //At most one restart per worker is in flight, so stopping early saves the rest
+        final int window = Math.max(1, pool.getParallelism());
+        final Deque<ForkJoinTask<KMeansResult>> tasks = new ArrayDeque<>(window);
+        final AtomicBoolean stopped = new AtomicBoolean();
+        int submitted = 0;
+        while (submitted < Math.min(window, restarts)) {
+            tasks.add(submit(samples, k, seeds[submitted++], stopped, pool));
+        }
+
+        KMeansResult best = null;
+        int withoutImprovement = 0;
+        boolean interrupted = false;
+
+        try {
+
+            while (!tasks.isEmpty()) {
+
+                final KMeansResult result = tasks.poll().get();
+
+                if (best == null || result.getSse() < best.getSse()) {
+                    best = result;
+                    withoutImprovement = 0;
+                } else if (++withoutImprovement >= patience) {
+                    break;
+                }
+
+                if (submitted < restarts) {
+                    tasks.add(submit(samples, k, seeds[submitted++], stopped, pool));
+                }
+            }
+
+        } catch (InterruptedException e) {
+            interrupted = true;
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            //Cancelling would not stop the restarts already running, so let the
+            //ones not yet started return at once and wait for the others
+            stopped.set(true);
+            if (!interrupted) {
+                tasks.forEach(ForkJoinTask::quietlyJoin);
+            }
+        }
+
+        return best;
+
+    }
+
+    private static ForkJoinTask<KMeansResult> submit(final SampleBlock samples,
+                                                     final int k,
+                                                     final long seed,
+                                                     final AtomicBoolean stopped,
+                                                     final ForkJoinPool pool) {
+
+        return pool.submit(() -> {
+            if (stopped.get()) {
+                return null;
+            }
+            final Random random = new Random(seed);
+            final SampleBlock centroids = KMeansPlusPlus.chooseCentroids(samples, k, random);
+            return HamerlyKMeans.execute(samples, centroids, KMeans.DEFAULT_MAXIMUM_ITERATIONS, 0);
+        });
+
+    }
+
+    /** Same as the block version, grouping the given samples into the
+     * clusters of the best restart.
+     */
+    public static List<Cluster> execute(final List<Sample> samples,
+                                        final int k,
+                                        final int restarts,
+                                        final int patience,
+                                        final Random random,
+                                        final ForkJoinPool pool) {
+
+        if (samples.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        final KMeansResult result = execute(SampleBlock.of(samples), k, restarts, patience, random, pool);
+        return KMeans.toClusters(samples, result);
+
+    }
+
+}
@@ -0,0 +1,82 @@
+package br.com.douglas444.streams.algorithms;
+
+import br.com.douglas444.streams.datastructures.Cluster;
+import br.com.douglas444.streams.datastructures.Sample;
+import br.com.douglas444.streams.datastructures.SampleBlock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Outcome of a KMeans run over a {@link SampleBlock}: the final centroids,
+ * the index of the centroid each sample was assigned to, the number of
+ * iterations, the sum of squared distances of the samples to their centroids
+ * (SSE) and whether the run converged before reaching its iteration cap.
+ */
+public class KMeansResult {
+
+    private final SampleBlock centroids;
+    private final int[] assignments;
+    private final int iterations;
+    private final double sse;
+    private final boolean converged;
+
+    public KMeansResult(final SampleBlock centroids,
+                        final int[] assignments,
+                        final int iterations,
+                        final double sse,
+                        final boolean converged) {
+
+        this.centroids = centroids;
+        this.assignments = assignments;
+        this.iterations = iterations;
+        this.sse = sse;
+        this.converged = converged;
+
+    }
+
+    /** Groups the samples into clusters according to the assignments. Empty
+     * clusters are left out.
+     */
+    public List<Cluster> toClusters(final SampleBlock samples) {
+
+        final List<List<Sample>> members = new ArrayList<>();
+        for (int i = 0; i < this.centroids.size(); ++i) {
+            members.add(new ArrayList<>());
+        }
+
+        for (int i = 0; i < samples.size(); ++i) {
+            members.get(this.assignments[i]).add(samples.getSample(i));
+        }
+
+        final List<Cluster> clusters = new ArrayList<>();
+        members.forEach(samplesOfCluster -> {
+            if (!samplesOfCluster.isEmpty()) {
+                clusters.add(new Cluster(samplesOfCluster));
+            }
+        });
+
+        return clusters;
+
+    }
+
+    public SampleBlock getCentroids() {
+        return centroids;
+    }
+
+    public int[] getAssignments() {
+        return assignments;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public double getSse() {
+        return sse;
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+
+}
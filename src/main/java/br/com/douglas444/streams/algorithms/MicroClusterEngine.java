@@ -0,0 +1,256 @@
+package br.com.douglas444.streams.algorithms;
+
+import br.com.douglas444.streams.datastructures.Cluster;
+import br.com.douglas444.streams.datastructures.ClusterFeature;
+import br.com.douglas444.streams.datastructures.MicroCluster;
+import br.com.douglas444.streams.datastructures.Sample;
+import br.com.douglas444.streams.datastructures.SampleBlock;
+import br.com.douglas444.streams.distance.DistanceKernel;
+import br.com.douglas444.streams.distance.DistanceKernels;
+import br.com.douglas444.streams.distance.NearestCandidateSearch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/** Summarizes a stream in constant memory with at most a fixed number of
+ * time-decayed micro-clusters, in the style of CluStream and DenStream.
+ *
+ * Each sample is absorbed by the closest micro-cluster if it falls within its
+ * boundary, radiusFactor times its radius, or, for a micro-cluster whose
+ * radius is still zero, the distance to the next closest micro-cluster.
+ * Otherwise it starts a new micro-cluster. When this exceeds the maximum
+ * number of micro-clusters, the lightest one is deleted if its decayed weight
+ * is below minimumWeight, as an outlier or an outdated cluster, and the two
+ * closest ones are merged otherwise.
+ *
+ * The weights of the samples decay as 2^(-decayRate * dt), with dt measured
+ * on the timestamps of the samples, which should not decrease. A decay rate
+ * of zero keeps every sample at weight one. The macro-clusters of the stream
+ * are found on demand by clustering the centroids of the micro-clusters with
+ * weighted {@link KMeansPlusPlus}.
+ */
+public class MicroClusterEngine {
+
+    private final int maximumMicroClusters;
+    private final double radiusFactor;
+    private final double decayRate;
+    private final double minimumWeight;
+
+    private final List<MicroCluster> microClusters;
+    private final NearestCandidateSearch search;
+    private double[] centroids;
+    private int dimensions;
+    private long timestamp;
+
+    public MicroClusterEngine(final int maximumMicroClusters,
+                              final double radiusFactor,
+                              final double decayRate,
+                              final double minimumWeight) {
+
+        if (maximumMicroClusters < 2 || radiusFactor <= 0 || decayRate < 0 || minimumWeight < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.maximumMicroClusters = maximumMicroClusters;
+        this.radiusFactor = radiusFactor;
+        this.decayRate = decayRate;
+        this.minimumWeight = minimumWeight;
+        this.microClusters = new ArrayList<>(maximumMicroClusters + 1);
+        this.search = new NearestCandidateSearch();
+        this.centroids = new double[0];
+        this.dimensions = -1;
+        this.timestamp = Long.MIN_VALUE;
+
+    }
+
+    public void process(final Sample sample) {
+
+        if (this.dimensions == -1) {
+            this.dimensions = sample.getX().length;
+            this.centroids = new double[(this.maximumMicroClusters + 1) * this.dimensions];
+        } else if (sample.getX().length != this.dimensions) {
+            throw new IllegalArgumentException("Expected " + this.dimensions + " features, got "
+                    + sample.getX().length);
+        }
+
+        this.timestamp = Math.max(this.timestamp, sample.getT());
+
+        if (!this.microClusters.isEmpty()) {
+
+            this.search.search(sample.getX(), 0, this.centroids, this.microClusters.size(), this.dimensions,
+                    Double.POSITIVE_INFINITY);
+            final int closest = this.search.getIndex();
+            final double distance = this.search.getDistance();
+            final MicroCluster microCluster = this.microClusters.get(closest);
+
+            microCluster.decay(sample.getT(), this.decayRate);
+
+            if (distance <= this.calculateBoundary(closest)) {
+                microCluster.add(sample, this.decayRate);
+                this.updateCentroid(closest);
+                return;
+            }
+        }
+
+        this.microClusters.add(new MicroCluster(sample));
+        this.updateCentroid(this.microClusters.size() - 1);
+
+        if (this.microClusters.size() > this.maximumMicroClusters) {
+            this.reduce();
+        }
+
+    }
+
+    private double calculateBoundary(final int index) {
+
+        final double radius = this.microClusters.get(index).calculateRadius();
+
+        if (radius > 0 || this.microClusters.size() == 1) {
+            return this.radiusFactor * radius;
+        }
+
+        //A micro-cluster without spread yet is bounded by its closest neighbour
+        final DistanceKernel kernel = DistanceKernels.get();
+        double closest = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < this.microClusters.size(); ++i) {
+            if (i != index) {
+                closest = Math.min(closest, kernel.squaredEuclidean(this.centroids, index * this.dimensions,
+                        this.centroids, i * this.dimensions, this.dimensions, closest));
+            }
+        }
+        return Math.sqrt(closest);
+
+    }
+
+    /** Deletes the lightest micro-cluster if its weight is below the minimum
+     * or decayed to zero, or merges the two closest micro-clusters otherwise.
+     */
+    private void reduce() {
+
+        int lightest = 0;
+        for (int i = 0; i < this.microClusters.size(); ++i) {
+            final MicroCluster microCluster = this.microClusters.get(i);
+            microCluster.decay(this.timestamp, this.decayRate);
+            if (microCluster.getWeight() < this.microClusters.get(lightest).getWeight()) {
+                lightest = i;
+            }
+        }
+
+        final double lightestWeight = this.microClusters.get(lightest).getWeight();
+        if (lightestWeight < this.minimumWeight || lightestWeight == 0) {
+            this.remove(lightest);
+            return;
+        }
+
+        final DistanceKernel kernel = DistanceKernels.get();
+        int first = 0;
+        int second = 1;
+        double closest = Double.POSITIVE_INFINITY;
+
+        for (int i = 0; i < this.microClusters.size(); ++i) {
+            for (int j = i + 1; j < this.microClusters.size(); ++j) {
+                final double distance = kernel.squaredEuclidean(this.centroids, i * this.dimensions,
+                        this.centroids, j * this.dimensions, this.dimensions, closest);
+                if (distance < closest) {
+                    closest = distance;
+                    first = i;
+                    second = j;
+                }
+            }
+        }
+
+        this.microClusters.get(first).merge(this.microClusters.get(second));
+        this.updateCentroid(first);
+        this.remove(second);
+
+    }
+
+    /** Removes the micro-cluster by moving the last one into its place.
+     */
+    private void remove(final int index) {
+
+        final int last = this.microClusters.size() - 1;
+        this.microClusters.set(index, this.microClusters.get(last));
+        this.microClusters.remove(last);
+        System.arraycopy(this.centroids, last * this.dimensions, this.centroids, index * this.dimensions,
+                this.dimensions);
+
+    }
+
+    private void updateCentroid(final int index) {
+
+        final double[] centroid = this.microClusters.get(index).calculateCentroid();
+        System.arraycopy(centroid, 0, this.centroids, index * this.dimensions, this.dimensions);
+
+    }
+
+    /** Groups the micro-clusters into at most k clusters by running weighted
+     * {@link KMeansPlusPlus} over their centroids, each weighted by the decayed
+     * weight of its micro-cluster. Micro-clusters whose weight decayed to
+     * zero are left out. Each returned cluster has no samples, only the sum
+     * of the decayed summaries of its micro-clusters.
+     */
+    public List<Cluster> calculateMacroClusters(final int k, final Random random) {
+
+        //Micro-clusters whose weight decayed to zero have no centroid
+        final List<MicroCluster> weighted = new ArrayList<>(this.microClusters.size());
+        for (MicroCluster microCluster : this.microClusters) {
+            microCluster.decay(this.timestamp, this.decayRate);
+            if (microCluster.getWeight() > 0) {
+                weighted.add(microCluster);
+            }
+        }
+
+        if (weighted.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        final SampleBlock block = new SampleBlock(this.dimensions, weighted.size());
+        final double[] weights = new double[weighted.size()];
+        for (int i = 0; i < weighted.size(); ++i) {
+            final MicroCluster microCluster = weighted.get(i);
+            block.add(microCluster.calculateCentroid(), SampleBlock.NO_LABEL, microCluster.getLastUpdate());
+            weights[i] = microCluster.getWeight();
+        }
+
+        final KMeansResult result = KMeansPlusPlus.execute(block, weights, k, random);
+        final int[] assignments = result.getAssignments();
+
+        final List<ClusterFeature> features = new ArrayList<>();
+        for (int i = 0; i < result.getCentroids().size(); ++i) {
+            features.add(new ClusterFeature(this.dimensions));
+        }
+        for (int i = 0; i < weighted.size(); ++i) {
+            features.get(assignments[i]).merge(weighted.get(i).getFeature());
+        }
+
+        final List<Cluster> clusters = new ArrayList<>();
+        for (ClusterFeature feature : features) {
+            if (feature.getN() > 0) {
+                clusters.add(new Cluster(feature));
+            }
+        }
+        return clusters;
+
+    }
+
+    /** Returns the micro-clusters, decayed to the time of the latest sample.
+     */
+    public List<MicroCluster> getMicroClusters() {
+
+        for (MicroCluster microCluster : this.microClusters) {
+            microCluster.decay(this.timestamp, this.decayRate);
+        }
+        return Collections.unmodifiableList(this.microClusters);
+
+    }
+
+    /** Timestamp of the latest sample processed.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+}
@@ -0,0 +1,222 @@
+package br.com.douglas444.streams.algorithms;
+
+import br.com.douglas444.streams.datastructures.Sample;
+import br.com.douglas444.streams.datastructures.SampleBlock;
+import br.com.douglas444.streams.distance.NearestCandidateSearch;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/** KMeans that moves its centroids a step towards each sample instead of
+ * recomputing them from all samples, following Sculley (2010). Each centroid
+ * counts the samples it has absorbed and moves towards a new one by the
+ * inverse of that count, so that it always is the mean of the samples it
+ * absorbed, as seen from their positions at the time.
+ *
+ * update(Sample) absorbs one sample at a time, as in sequential (MacQueen)
+ * KMeans, and can be fed directly from a processor. update(SampleBlock)
+ * absorbs a mini-batch, assigning all its samples to the centroids before
+ * moving them, and fit runs mini-batches of random samples of a larger
+ * block. The centroids are given at construction, so a model can be warm
+ * started from the result of a previous clustering.
+ */
+public class MiniBatchKMeans {
+
+    private final int k;
+    private final int d;
+    private final double[] centroids;
+    private final double[] previousCentroids;
+    private final long[] counts;
+    private final NearestCandidateSearch search;
+    private int[] batchAssignments;
+
+    public MiniBatchKMeans(final SampleBlock initialCentroids) {
+        this(initialCentroids, 0);
+    }
+
+    /** The initial count is given to every centroid, as if it had already
+     * absorbed that many samples, so that a warm-started model is not dragged
+     * to the first samples it sees.
+     */
+    public MiniBatchKMeans(final SampleBlock initialCentroids, final long initialCount) {
+
+        if (initialCentroids.isEmpty() || initialCount < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.k = initialCentroids.size();
+        this.d = initialCentroids.getDimensions();
+        this.centroids = Arrays.copyOf(initialCentroids.getData(), this.k * this.d);
+        this.previousCentroids = new double[this.k * this.d];
+        this.counts = new long[this.k];
+        Arrays.fill(this.counts, initialCount);
+        this.search = new NearestCandidateSearch();
+        this.batchAssignments = new int[0];
+
+    }
+
+    public MiniBatchKMeans(final List<Sample> initialCentroids) {
+        this(SampleBlock.of(initialCentroids));
+    }
+
+    public static MiniBatchKMeans of(final SampleBlock samples, final int k, final Random random) {
+        return new MiniBatchKMeans(KMeans.chooseCentroids(samples, k, random));
+    }
+
+    /** Returns the index of the centroid closest to the point.
+     */
+    public int predict(final double[] x) {
+
+        this.checkDimensions(x);
+        this.search.search(x, 0, this.centroids, this.k, this.d, Double.POSITIVE_INFINITY);
+        return Math.max(0, this.search.getIndex());
+
+    }
+
+    /** Moves the centroid closest to the sample towards it and returns its
+     * index.
+     */
+    public int update(final Sample sample) {
+
+        final int closest = this.predict(sample.getX());
+        this.move(closest, sample.getX(), 0);
+        return closest;
+
+    }
+
+    /** Assigns every sample of the batch to its closest centroid, and then
+     * moves the centroids towards the samples assigned to them.
+     *
+     * @return the largest squared distance a centroid moved.
+     */
+    public double update(final SampleBlock batch) {
+
+        if (batch.getDimensions() != this.d) {
+            throw new IllegalArgumentException("Expected " + this.d + " features, got " + batch.getDimensions());
+        }
+
+        return this.update(batch.getData(), null, batch.size());
+
+    }
+
+    /** Updates the centroids with the samples of data at the given rows, or
+     * at the first count rows if rows is null.
+     */
+    private double update(final double[] data, final int[] rows, final int count) {
+
+        if (this.batchAssignments.length < count) {
+            this.batchAssignments = new int[count];
+        }
+
+        for (int i = 0; i < count; ++i) {
+            final int row = rows == null ? i : rows[i];
+            this.search.search(data, row * this.d, this.centroids, this.k, this.d, Double.POSITIVE_INFINITY);
+            this.batchAssignments[i] = Math.max(0, this.search.getIndex());
+        }
+
+        System.arraycopy(this.centroids, 0, this.previousCentroids, 0, this.centroids.length);
+
+        for (int i = 0; i < count; ++i) {
+            final int row = rows == null ? i : rows[i];
+            this.move(this.batchAssignments[i], data, row * this.d);
+        }
+
+        double shift = 0;
+        for (int c = 0; c < this.k; ++c) {
+            double shiftOfCentroid = 0;
+            for (int j = 0; j < this.d; ++j) {
+                final double difference = this.centroids[c * this.d + j] - this.previousCentroids[c * this.d + j];
+                shiftOfCentroid += difference * difference;
+            }
+            shift = Math.max(shift, shiftOfCentroid);
+        }
+
+        return shift;
+
+    }
+
+    private void move(final int c, final double[] x, final int offset) {
+
+        final double rate = 1.0 / ++this.counts[c];
+        final int base = c * this.d;
+
+        for (int j = 0; j < this.d; ++j) {
+            this.centroids[base + j] += rate * (x[offset + j] - this.centroids[base + j]);
+        }
+
+    }
+
+    /** Runs mini-batches of batchSize samples drawn at random, with
+     * replacement, from the samples, until the centroids move no more than
+     * the tolerance in a batch or maximumIterations batches are run. The
+     * result assigns all samples to the final centroids; its iterations are
+     * the number of batches run.
+     */
+    public KMeansResult fit(final SampleBlock samples,
+                            final int batchSize,
+                            final int maximumIterations,
+                            final double tolerance,
+                            final Random random) {
+
+        if (samples.getDimensions() != this.d) {
+            throw new IllegalArgumentException("Expected " + this.d + " features, got " + samples.getDimensions());
+        }
+
+        if (samples.isEmpty() || batchSize < 1 || maximumIterations < 1 || tolerance < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        final double toleranceSquared = tolerance * tolerance;
+        final int[] rows = new int[batchSize];
+        int iterations = 0;
+        boolean converged = false;
+
+        while (iterations < maximumIterations && !converged) {
+
+            ++iterations;
+            for (int i = 0; i < batchSize; ++i) {
+                rows[i] = random.nextInt(samples.size());
+            }
+            converged = this.update(samples.getData(), rows, batchSize) <= toleranceSquared;
+        }
+
+        final int n = samples.size();
+        final int[] assignments = new int[n];
+        final double[] data = samples.getData();
+        double sse = 0;
+
+        for (int i = 0; i < n; ++i) {
+            this.search.search(data, i * this.d, this.centroids, this.k, this.d, Double.POSITIVE_INFINITY);
+            assignments[i] = Math.max(0, this.search.getIndex());
+            sse += this.search.getDistanceSquared();
+        }
+
+        return new KMeansResult(this.getCentroids(), assignments, iterations, sse, converged);
+
+    }
+
+    /** Returns a copy of the current centroids.
+     */
+    public SampleBlock getCentroids() {
+        return KMeans.toSampleBlock(this.centroids, this.k, this.d);
+    }
+
+    /** Number of samples absorbed by the centroid, including the initial
+     * count.
+     */
+    public long getCount(final int c) {
+        return this.counts[c];
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    private void checkDimensions(final double[] x) {
+        if (x.length != this.d) {
+            throw new IllegalArgumentException("Expected " + this.d + " features, got " + x.length);
+        }
+    }
+
+}
@@ -0,0 +1,230 @@
+package br.com.douglas444.streams.algorithms;
+
+import br.com.douglas444.streams.datastructures.SampleBlock;
+import br.com.douglas444.streams.distance.NearestCandidateSearch;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** Lloyd iterations of {@link KMeans} with the assignment step split across a
+ * {@link ForkJoinPool}. The samples are divided in chunks, and the task of
+ * each chunk assigns its samples and accumulates the per-cluster sums, counts
+ * and SSE of the chunk. The update step then adds up these partials.
+ *
+ * The chunks depend only on the number of samples and the partials are added
+ * in chunk order, so the result is the same for any pool size. It may differ
+ * from the sequential KMeans in the last bits of the centroids, as the sums
+ * are grouped differently.
+ */
+public final class ParallelKMeans {
+
+    private static final int MINIMUM_CHUNK_SIZE = 4096;
+    private static final int MAXIMUM_CHUNKS = 256;
+
+    private ParallelKMeans() {
+    }
+
+    public static KMeansResult execute(final SampleBlock samples,
+                                       final int k,
+                                       final Random random,
+                                       final ForkJoinPool pool) {
+
+        final SampleBlock centroids = KMeans.chooseCentroids(samples, k, random);
+        return execute(samples, centroids, KMeans.DEFAULT_MAXIMUM_ITERATIONS, 0, pool);
+
+    }
+
+    /** Same as {@link KMeans#execute(SampleBlock, SampleBlock, int, double)},
+     * running the assignment step on the pool.
+     */
+    public static KMeansResult execute(final SampleBlock samples,
+                                       final SampleBlock initialCentroids,
+                                       final int maximumIterations,
+                                       final double tolerance,
+                                       final ForkJoinPool pool) {
+
+        if (initialCentroids.isEmpty() || maximumIterations < 1 || tolerance < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        final double toleranceSquared = tolerance * tolerance;
+        final int n = samples.size();
+        final int d = samples.getDimensions();
+        int k = initialCentroids.size();
+
+        final int chunkSize = Math.max(MINIMUM_CHUNK_SIZE, (n + MAXIMUM_CHUNKS - 1) / MAXIMUM_CHUNKS);
+        final int chunks = Math.max(1, (n + chunkSize - 1) / chunkSize);
+
+        final Partials partials = new Partials(samples, initialCentroids, chunkSize, chunks);
+        final double[] centroids = partials.centroids;
+        final double[] sums = new double[k * d];
+        final double[] counts = new double[k];
+        final int[] remap = new int[k];
+
+        int iterations = 0;
+        boolean converged = false;
+        boolean withinTolerance = false;
+        double sse;
+
+        while (true) {
+
+            ++iterations;
+            partials.k = k;
+            pool.invoke(new AssignmentTask(partials, 0, chunks));
+
+            sse = 0;
+            boolean changed = false;
+            for (int chunk = 0; chunk < chunks; ++chunk) {
+                sse += partials.sse[chunk];
+                changed |= partials.changed[chunk];
+            }
+
+            if (!changed || withinTolerance) {
+                converged = true;
+                break;
+            }
+
+            if (iterations == maximumIterations) {
+                break;
+            }
+
+            Arrays.fill(sums, 0, k * d, 0);
+            Arrays.fill(counts, 0, k, 0);
+
+            for (int chunk = 0; chunk < chunks; ++chunk) {
+                final double[] partialSums = partials.sums[chunk];
+                final int[] partialCounts = partials.counts[chunk];
+                for (int i = 0; i < k * d; ++i) {
+                    sums[i] += partialSums[i];
+                }
+                for (int c = 0; c < k; ++c) {
+                    counts[c] += partialCounts[c];
+                }
+            }
+
+            withinTolerance = KMeans.calculateShiftSquared(centroids, sums, counts, k, d) <= toleranceSquared;
+            final int kept = KMeans.moveCentroids(centroids, sums, counts, k, d, remap);
+
+            if (kept < k) {
+                final int[] assignments = partials.assignments;
+                for (int i = 0; i < n; ++i) {
+                    assignments[i] = remap[assignments[i]];
+                }
+                k = kept;
+            }
+        }
+
+        return new KMeansResult(KMeans.toSampleBlock(centroids, k, d), partials.assignments, iterations, sse,
+                converged);
+
+    }
+
+    /** Buffers shared by the assignment tasks, allocated once per run. Each
+     * chunk only writes to its own slot of the partial arrays.
+     */
+    private static final class Partials {
+
+        private final double[] data;
+        private final int d;
+        private final int n;
+        private final int chunkSize;
+        private final double[] centroids;
+        private final int[] assignments;
+        private final double[][] sums;
+        private final int[][] counts;
+        private final double[] sse;
+        private final boolean[] changed;
+        private int k;
+
+        private Partials(final SampleBlock samples,
+                         final SampleBlock initialCentroids,
+                         final int chunkSize,
+                         final int chunks) {
+
+            this.data = samples.getData();
+            this.d = samples.getDimensions();
+            this.n = samples.size();
+            this.chunkSize = chunkSize;
+            this.k = initialCentroids.size();
+            this.centroids = Arrays.copyOf(initialCentroids.getData(), this.k * this.d);
+            this.assignments = new int[this.n];
+            Arrays.fill(this.assignments, -1);
+            this.sums = new double[chunks][this.k * this.d];
+            this.counts = new int[chunks][this.k];
+            this.sse = new double[chunks];
+            this.changed = new boolean[chunks];
+
+        }
+
+        private void assign(final int chunk) {
+
+            final int from = chunk * this.chunkSize;
+            final int to = Math.min(this.n, from + this.chunkSize);
+            final int k = this.k;
+            final int d = this.d;
+            final double[] sums = this.sums[chunk];
+            final int[] counts = this.counts[chunk];
+
+            Arrays.fill(sums, 0, k * d, 0);
+            Arrays.fill(counts, 0, k, 0);
+
+            final NearestCandidateSearch search = new NearestCandidateSearch();
+            double sse = 0;
+            boolean changed = false;
+
+            for (int i = from; i < to; ++i) {
+
+                final int closest = search.search(this.data, i * d, this.centroids, k, d, Double.POSITIVE_INFINITY)
+                        ? search.getIndex() : 0;
+
+                if (this.assignments[i] != closest) {
+                    this.assignments[i] = closest;
+                    changed = true;
+                }
+                sse += search.getDistanceSquared();
+
+                ++counts[closest];
+                for (int j = 0; j < d; ++j) {
+                    sums[closest * d + j] += this.data[i * d + j];
+                }
+            }
+
+            this.sse[chunk] = sse;
+            this.changed[chunk] = changed;
+
+        }
+
+    }
+
+    private static final class AssignmentTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Partials partials;
+        private final int from;
+        private final int to;
+
+        private AssignmentTask(final Partials partials, final int from, final int to) {
+            this.partials = partials;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (this.to - this.from == 1) {
+                this.partials.assign(this.from);
+            } else {
+                final int middle = (this.from + this.to) >>> 1;
+                invokeAll(new AssignmentTask(this.partials, this.from, middle),
+                        new AssignmentTask(this.partials, middle, this.to));
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,280 @@
+package br.com.douglas444.streams.algorithms;
+
+import br.com.douglas444.streams.datastructures.SampleBlock;
+import br.com.douglas444.streams.distance.DistanceKernel;
+import br.com.douglas444.streams.distance.DistanceKernels;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** KMeans seeded with k-means|| (Bahmani et al., 2012), which replaces the k
+ * sequential passes of {@link KMeansPlusPlus} by a few parallel rounds. The
+ * first candidate is a random sample, and in each round every sample becomes
+ * a candidate independently, with probability oversampling times its share
+ * of the total squared distance to the closest candidate. The candidates are
+ * then weighted by the number of samples closest to them and reduced to k
+ * centroids with weighted KMeans++ seeding.
+ *
+ * The rounds run on a {@link ForkJoinPool} over chunks that depend only on
+ * the number of samples, and each chunk draws from its own generator seeded
+ * from the given one, so the centroids are the same for any pool size.
+ */
+public final class ScalableKMeansPlusPlus {
+
+    public static final int DEFAULT_ROUNDS = 5;
+
+    private static final int MINIMUM_CHUNK_SIZE = 4096;
+    private static final int MAXIMUM_CHUNKS = 256;
+
+    private ScalableKMeansPlusPlus() {
+    }
+
+    /** Seeds with k-means|| using 2k as oversampling factor and then runs
+     * {@link ParallelKMeans} on the same pool.
+     */
+    public static KMeansResult execute(final SampleBlock samples,
+                                       final int k,
+                                       final Random random,
+                                       final ForkJoinPool pool) {
+
+        final SampleBlock centroids = chooseCentroids(samples, k, 2.0 * k, DEFAULT_ROUNDS, random, pool);
+        return ParallelKMeans.execute(samples, centroids, KMeans.DEFAULT_MAXIMUM_ITERATIONS, 0, pool);
+
+    }
+
+    public static SampleBlock chooseCentroids(final SampleBlock samples,
+                                              final int k,
+                                              final double oversampling,
+                                              final int rounds,
+                                              final Random random,
+                                              final ForkJoinPool pool) {
+
+        if (samples.isEmpty() || k < 1 || !(oversampling > 0) || rounds < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        final int n = samples.size();
+        final int d = samples.getDimensions();
+        final int chunkSize = Math.max(MINIMUM_CHUNK_SIZE, (n + MAXIMUM_CHUNKS - 1) / MAXIMUM_CHUNKS);
+        final int chunks = (n + chunkSize - 1) / chunkSize;
+
+        final Rounds state = new Rounds(samples, chunkSize, chunks);
+        state.addCandidate(random.nextInt(n));
+
+        for (int round = 0; round < rounds; ++round) {
+
+            pool.invoke(new ChunkTask(state, 0, chunks, Step.UPDATE));
+            state.updatedCandidates = state.candidates.size();
+
+            double cost = 0;
+            for (int chunk = 0; chunk < chunks; ++chunk) {
+                cost += state.costs[chunk];
+            }
+            if (cost == 0) {
+                break;
+            }
+
+            state.probabilityFactor = oversampling / cost;
+            state.roundSeed = random.nextLong();
+            pool.invoke(new ChunkTask(state, 0, chunks, Step.SAMPLE));
+
+            //Candidates are appended in chunk order, which keeps them deterministic
+            for (int chunk = 0; chunk < chunks; ++chunk) {
+                final int[] sampled = state.sampled[chunk];
+                for (int i = 0; i < state.sampledCounts[chunk]; ++i) {
+                    state.addCandidate(sampled[i]);
+                }
+            }
+        }
+
+        //Weights each candidate by the number of samples closest to it
+        state.candidateCount = state.candidates.size();
+        pool.invoke(new ChunkTask(state, 0, chunks, Step.WEIGHT));
+
+        final double[] weights = new double[state.candidateCount];
+        for (int chunk = 0; chunk < chunks; ++chunk) {
+            for (int c = 0; c < state.candidateCount; ++c) {
+                weights[c] += state.closestCounts[chunk][c];
+            }
+        }
+
+        final int[] chosen = KMeansPlusPlus.chooseCentroidIndexes(state.candidates.getData(), weights,
+                state.candidateCount, d, k, random);
+
+        final SampleBlock centroids = new SampleBlock(d, k);
+        for (int index : chosen) {
+            centroids.add(state.candidates.getX(index), SampleBlock.NO_LABEL, 0);
+        }
+        return centroids;
+
+    }
+
+    /** State shared by the chunk tasks. Each chunk only writes to its own
+     * slot of the per-chunk arrays.
+     */
+    private static final class Rounds {
+
+        private final SampleBlock samples;
+        private final int n;
+        private final int d;
+        private final int chunkSize;
+        private final double[] distances;
+        private final SampleBlock candidates;
+        private final double[] costs;
+        private final int[][] sampled;
+        private final int[] sampledCounts;
+        private final int[][] closestCounts;
+        private int updatedCandidates;
+        private int candidateCount;
+        private double probabilityFactor;
+        private long roundSeed;
+
+        private Rounds(final SampleBlock samples, final int chunkSize, final int chunks) {
+
+            this.samples = samples;
+            this.n = samples.size();
+            this.d = samples.getDimensions();
+            this.chunkSize = chunkSize;
+            this.distances = new double[this.n];
+            Arrays.fill(this.distances, Double.POSITIVE_INFINITY);
+            this.candidates = new SampleBlock(this.d);
+            this.costs = new double[chunks];
+            this.sampled = new int[chunks][];
+            this.sampledCounts = new int[chunks];
+            this.closestCounts = new int[chunks][];
+            this.updatedCandidates = 0;
+
+        }
+
+        private void addCandidate(final int index) {
+            this.candidates.add(this.samples.getX(index), SampleBlock.NO_LABEL, 0);
+        }
+
+        /** Lowers the squared distances of the chunk with the candidates added
+         * since the last update, and sums them into the cost of the chunk.
+         */
+        private void update(final int chunk) {
+
+            final DistanceKernel kernel = DistanceKernels.get();
+            final double[] data = this.samples.getData();
+            final double[] candidates = this.candidates.getData();
+            final int from = chunk * this.chunkSize;
+            final int to = Math.min(this.n, from + this.chunkSize);
+            double cost = 0;
+
+            for (int i = from; i < to; ++i) {
+                double distance = this.distances[i];
+                for (int c = this.updatedCandidates; c < this.candidates.size(); ++c) {
+                    distance = Math.min(distance, kernel.squaredEuclidean(data, i * this.d, candidates, c * this.d,
+                            this.d, distance));
+                }
+                this.distances[i] = distance;
+                cost += distance;
+            }
+
+            this.costs[chunk] = cost;
+
+        }
+
+        private void sample(final int chunk) {
+
+            final SplittableRandom random = new SplittableRandom(this.roundSeed + chunk * 0x9E3779B97F4A7C15L);
+            final int from = chunk * this.chunkSize;
+            final int to = Math.min(this.n, from + this.chunkSize);
+
+            int[] sampled = this.sampled[chunk] == null ? new int[8] : this.sampled[chunk];
+            int count = 0;
+
+            for (int i = from; i < to; ++i) {
+                if (random.nextDouble() < this.probabilityFactor * this.distances[i]) {
+                    if (count == sampled.length) {
+                        sampled = Arrays.copyOf(sampled, 2 * count);
+                    }
+                    sampled[count++] = i;
+                }
+            }
+
+            this.sampled[chunk] = sampled;
+            this.sampledCounts[chunk] = count;
+
+        }
+
+        private void weight(final int chunk) {
+
+            final DistanceKernel kernel = DistanceKernels.get();
+            final double[] data = this.samples.getData();
+            final double[] candidates = this.candidates.getData();
+            final int[] counts = new int[this.candidateCount];
+            final int from = chunk * this.chunkSize;
+            final int to = Math.min(this.n, from + this.chunkSize);
+
+            for (int i = from; i < to; ++i) {
+                int closest = 0;
+                double best = Double.POSITIVE_INFINITY;
+                for (int c = 0; c < this.candidateCount; ++c) {
+                    final double distance = kernel.squaredEuclidean(data, i * this.d, candidates, c * this.d,
+                            this.d, best);
+                    if (distance < best) {
+                        best = distance;
+                        closest = c;
+                    }
+                }
+                ++counts[closest];
+            }
+
+            this.closestCounts[chunk] = counts;
+
+        }
+
+    }
+
+    private enum Step {
+        UPDATE, SAMPLE, WEIGHT
+    }
+
+    private static final class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Rounds rounds;
+        private final int from;
+        private final int to;
+        private final Step step;
+
+        private ChunkTask(final Rounds rounds, final int from, final int to, final Step step) {
+            this.rounds = rounds;
+            this.from = from;
+            this.to = to;
+            this.step = step;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (this.to - this.from > 1) {
+                final int middle = (this.from + this.to) >>> 1;
+                invokeAll(new ChunkTask(this.rounds, this.from, middle, this.step),
+                        new ChunkTask(this.rounds, middle, this.to, this.step));
+                return;
+            }
+
+            switch (this.step) {
+                case UPDATE:
+                    this.rounds.update(this.from);
+                    break;
+                case SAMPLE:
+                    this.rounds.sample(this.from);
+                    break;
+                default:
+                    this.rounds.weight(this.from);
+                    break;
+            }
+
+        }
+
+    }
+
+}
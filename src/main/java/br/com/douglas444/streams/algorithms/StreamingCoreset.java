@@ -0,0 +1,201 @@
+package br.com.douglas444.streams.algorithms;
+
+import br.com.douglas444.streams.datastructures.Sample;
+import br.com.douglas444.streams.datastructures.SampleBlock;
+import br.com.douglas444.streams.distance.NearestCandidateSearch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/** Maintains a weighted summary of an unbounded stream for KMeans, following
+ * the merge-and-reduce scheme of StreamKM++ (Ackermann et al., 2012).
+ *
+ * Samples fill a first bucket of coresetSize points. When it is full, its
+ * points are carried to the next level: at each level, a non-empty bucket
+ * is merged with the carried points and the 2 * coresetSize points are
+ * reduced back to coresetSize, which are carried on, until an empty bucket
+ * takes them. Bucket i thus summarizes 2^(i - 1) * coresetSize samples, and
+ * only O(coresetSize * log(n / coresetSize)) points are kept after n samples.
+ *
+ * A set of points is reduced by choosing representatives among them with
+ * weighted KMeans++ seeding and giving each representative the total weight
+ * of the points closest to it, which is how StreamKM++ builds its coresets.
+ * The coreset tree StreamKM++ uses only speeds this seeding up, so it is
+ * not used here.
+ */
+public class StreamingCoreset {
+
+    private final int dimensions;
+    private final int coresetSize;
+    private final Random random;
+    private final NearestCandidateSearch search;
+    private final List<Bucket> buckets;
+    private long count;
+
+    public StreamingCoreset(final int dimensions, final int coresetSize, final Random random) {
+
+        if (dimensions < 1 || coresetSize < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.dimensions = dimensions;
+        this.coresetSize = coresetSize;
+        this.random = random;
+        this.search = new NearestCandidateSearch();
+        this.buckets = new ArrayList<>();
+        this.buckets.add(new Bucket(dimensions, coresetSize));
+        this.count = 0;
+
+    }
+
+    public void add(final Sample sample) {
+        this.add(sample.getX());
+    }
+
+    public void add(final double[] x) {
+
+        if (x.length != this.dimensions) {
+            throw new IllegalArgumentException("Expected " + this.dimensions + " features, got " + x.length);
+        }
+
+        final Bucket first = this.buckets.get(0);
+        first.add(x, 0, 1);
+        ++this.count;
+
+        if (first.size < this.coresetSize) {
+            return;
+        }
+
+        Bucket carried = new Bucket(this.dimensions, 2 * this.coresetSize);
+        carried.addAll(first);
+        first.size = 0;
+
+        for (int level = 1; ; ++level) {
+
+            if (level == this.buckets.size()) {
+                this.buckets.add(new Bucket(this.dimensions, 2 * this.coresetSize));
+            }
+
+            final Bucket bucket = this.buckets.get(level);
+
+            if (bucket.size == 0) {
+                bucket.addAll(carried);
+                break;
+            }
+
+            carried.addAll(bucket);
+            bucket.size = 0;
+            carried = this.reduce(carried, this.coresetSize);
+        }
+
+    }
+
+    /** Returns a coreset of at most coresetSize points summarizing all the
+     * samples added so far, reducing the union of the buckets if needed.
+     */
+    public Coreset getCoreset() {
+
+        int points = 0;
+        for (Bucket bucket : this.buckets) {
+            points += bucket.size;
+        }
+
+        Bucket union = new Bucket(this.dimensions, Math.max(1, points));
+        for (Bucket bucket : this.buckets) {
+            union.addAll(bucket);
+        }
+
+        if (union.size > this.coresetSize) {
+            union = this.reduce(union, this.coresetSize);
+        }
+
+        final SampleBlock block = new SampleBlock(this.dimensions, union.size);
+        final double[] x = new double[this.dimensions];
+        for (int i = 0; i < union.size; ++i) {
+            System.arraycopy(union.data, i * this.dimensions, x, 0, this.dimensions);
+            block.add(x, SampleBlock.NO_LABEL, 0);
+        }
+
+        return new Coreset(block, Arrays.copyOf(union.weights, union.size));
+
+    }
+
+    /** Reduces the points to at most size weighted representatives, leaving
+     * out representatives that no point is closest to.
+     */
+    private Bucket reduce(final Bucket points, final int size) {
+
+        final int[] chosen = KMeansPlusPlus.chooseCentroidIndexes(points.data, points.weights, points.size,
+                this.dimensions, size, this.random);
+
+        final double[] representatives = new double[size * this.dimensions];
+        for (int c = 0; c < size; ++c) {
+            System.arraycopy(points.data, chosen[c] * this.dimensions, representatives, c * this.dimensions,
+                    this.dimensions);
+        }
+
+        final double[] weights = new double[size];
+        for (int i = 0; i < points.size; ++i) {
+            this.search.search(points.data, i * this.dimensions, representatives, size, this.dimensions,
+                    Double.POSITIVE_INFINITY);
+            weights[Math.max(0, this.search.getIndex())] += points.weights[i];
+        }
+
+        final Bucket reduced = new Bucket(this.dimensions, 2 * size);
+        for (int c = 0; c < size; ++c) {
+            if (weights[c] > 0) {
+                reduced.add(representatives, c * this.dimensions, weights[c]);
+            }
+        }
+        return reduced;
+
+    }
+
+    /** Number of samples added so far.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /** Number of points currently kept in the buckets.
+     */
+    public int getPointCount() {
+
+        int points = 0;
+        for (Bucket bucket : this.buckets) {
+            points += bucket.size;
+        }
+        return points;
+
+    }
+
+    private static final class Bucket {
+
+        private final int dimensions;
+        private final double[] data;
+        private final double[] weights;
+        private int size;
+
+        private Bucket(final int dimensions, final int capacity) {
+            this.dimensions = dimensions;
+            this.data = new double[capacity * dimensions];
+            this.weights = new double[capacity];
+            this.size = 0;
+        }
+
+        private void add(final double[] x, final int offset, final double weight) {
+            System.arraycopy(x, offset, this.data, this.size * this.dimensions, this.dimensions);
+            this.weights[this.size++] = weight;
+        }
+
+        private void addAll(final Bucket bucket) {
+            for (int i = 0; i < bucket.size; ++i) {
+                this.add(bucket.data, i * this.dimensions, bucket.weights[i]);
+            }
+        }
+
+    }
+
+}
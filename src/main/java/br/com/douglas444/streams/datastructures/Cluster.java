@@ -1,13 +1,21 @@
 package br.com.douglas444.streams.datastructures;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
+/** Group of samples summarized by a {@link ClusterFeature}, kept up to date
+ * as samples are added, so that the centroid and standard deviation are
+ * computed in O(d). The samples themselves can be dropped once they are no
+ * longer needed, after which the cluster holds only its summary.
+ */
 public class Cluster {
 
-    private final List<Sample> samples;
-    private final Sample mostRecentSample;
+    private List<Sample> samples;
+    private final ClusterFeature feature;
+    private final Integer centroidLabel;
+    private Sample mostRecentSample;
     private Integer label;
 
     public Cluster(final List<Sample> samples) {
@@ -17,6 +25,10 @@ public class Cluster {
         }
 
         this.samples = new ArrayList<>(samples);
+        this.feature = ClusterFeature.of(this.samples);
+
+        //The centroid has the label of the first sample, as it used to be a copy of it
+        this.centroidLabel = this.samples.get(0).getY();
 
         this.mostRecentSample = this.samples
                 .stream()
@@ -24,29 +36,74 @@ public class Cluster {
                 .orElse(this.getSamples().get(0));
     }
 
-    public Sample calculateCentroid() {
+    /** Creates a cluster without samples from a summary, which is used by the
+     * cluster from then on. Such a cluster has no most recent sample.
+     */
+    public Cluster(final ClusterFeature feature) {
+
+        if (!(feature.getN() > 0)) {
+            throw new IllegalArgumentException();
+        }
+
+        this.samples = null;
+        this.feature = feature;
+        this.centroidLabel = null;
+        this.mostRecentSample = null;
+
+    }
 
-        final Sample centroid = this.samples.get(0).copy();
+    public void addSample(final Sample sample) {
 
-        if (this.samples.size() > 1) {
-            this.samples.subList(1, this.samples.size()).forEach(centroid::sum);
+        this.feature.add(sample);
+
+        if (this.samples != null) {
+            this.samples.add(sample);
         }
 
-        centroid.divide(this.samples.size());
-        return centroid;
+        if (this.mostRecentSample == null || sample.getT() < this.mostRecentSample.getT()) {
+            this.mostRecentSample = sample;
+        }
 
     }
 
-    public double calculateStandardDeviation() {
+    /** Adds the samples, or only the summary if either cluster has dropped its
+     * samples, of the other cluster to this one.
+     */
+    public void merge(final Cluster cluster) {
 
-        final Sample centroid = this.calculateCentroid();
+        this.feature.merge(cluster.feature);
 
-        final double sum = this.samples
-                .stream()
-                .mapToDouble(sample -> Math.pow(sample.distance(centroid), 2))
-                .sum();
+        if (this.samples != null && cluster.samples != null) {
+            this.samples.addAll(cluster.samples);
+        } else {
+            this.samples = null;
+        }
+
+        final Sample other = cluster.mostRecentSample;
+        if (other != null && (this.mostRecentSample == null || other.getT() < this.mostRecentSample.getT())) {
+            this.mostRecentSample = other;
+        }
 
-        return Math.sqrt(sum / this.samples.size());
+    }
+
+    /** Releases the samples of the cluster, keeping only their summary.
+     */
+    public void dropSamples() {
+        this.samples = null;
+    }
+
+    public boolean hasSamples() {
+        return this.samples != null;
+    }
+
+    public Sample calculateCentroid() {
+        return new Sample(this.feature.calculateCentroid(), this.centroidLabel);
+    }
+
+    /** Root mean squared distance of the samples to the centroid.
+     */
+    public double calculateStandardDeviation() {
+        return this.feature.calculateRadius();
     }
 
     public Sample getMostRecentSample() {
@@ -54,13 +111,30 @@ public class Cluster {
     }
 
     public int getSize() {
-        return samples.size();
+        return (int) Math.round(this.feature.getN());
     }
 
-    public boolean isEmpty() {return samples.isEmpty();}
+    public boolean isEmpty() {return this.feature.getN() == 0;}
 
+    /** Returns a read-only view of the samples of the cluster, which are
+     * added with addSample so that the summary stays up to date.
+     *
+     * @throws IllegalStateException if the samples were dropped.
+     */
     public List<Sample> getSamples() {
-        return samples;
+
+        if (this.samples == null) {
+            throw new IllegalStateException("The samples of the cluster were dropped");
+        }
+
+        return Collections.unmodifiableList(this.samples);
+    }
+
+    /** Returns the summary of the samples of the cluster, which reflects any
+     * change made to it.
+     */
+    public ClusterFeature getFeature() {
+        return feature;
     }
 
     public Integer getLabel() {
@@ -0,0 +1,207 @@
+package br.com.douglas444.streams.datastructures;
+
+import java.util.List;
+
+/** Additive summary of a set of samples (cluster feature): their number N,
+ * the linear sum LS and squared sum SS of their features per dimension, and
+ * the linear and squared sums of their timestamps. The centroid, radius and
+ * standard deviations follow from it in O(d), and the summary of the union or
+ * difference of two disjoint sets is the sum or difference of their
+ * summaries.
+ *
+ * Samples may be added with a weight, in which case N is the sum of the
+ * weights. Variances are computed as SS / N - (LS / N)^2, which loses
+ * precision when the spread is small compared to the magnitude of the
+ * features; negative results from this cancellation are clamped to zero.
+ */
+public class ClusterFeature {
+
+    private final int dimensions;
+    private double n;
+    private final double[] linearSum;
+    private final double[] squaredSum;
+    private double timestampSum;
+    private double squaredTimestampSum;
+
+    public ClusterFeature(final int dimensions) {
+
+        if (dimensions < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.dimensions = dimensions;
+        this.n = 0;
+        this.linearSum = new double[dimensions];
+        this.squaredSum = new double[dimensions];
+        this.timestampSum = 0;
+        this.squaredTimestampSum = 0;
+
+    }
+
+    public static ClusterFeature of(final List<Sample> samples) {
+
+        if (samples.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+
+        final ClusterFeature feature = new ClusterFeature(samples.get(0).getX().length);
+        samples.forEach(feature::add);
+        return feature;
+
+    }
+
+    public ClusterFeature copy() {
+
+        final ClusterFeature copy = new ClusterFeature(this.dimensions);
+        copy.merge(this);
+        return copy;
+
+    }
+
+    public void add(final Sample sample) {
+        this.add(sample.getX(), sample.getT(), 1);
+    }
+
+    public void add(final double[] x, final long t, final double weight) {
+
+        if (x.length != this.dimensions) {
+            throw new IllegalArgumentException("Expected " + this.dimensions + " features, got " + x.length);
+        }
+
+        this.n += weight;
+
+        for (int i = 0; i < this.dimensions; ++i) {
+            final double value = x[i];
+            this.linearSum[i] += weight * value;
+            this.squaredSum[i] += weight * value * value;
+        }
+
+        this.timestampSum += weight * t;
+        this.squaredTimestampSum += weight * (double) t * t;
+
+    }
+
+    /** Adds the samples summarized by the other feature to this one.
+     */
+    public void merge(final ClusterFeature feature) {
+        this.combine(feature, 1);
+    }
+
+    /** Removes from this feature the samples summarized by the other one,
+     * which must be a subset of the samples summarized by this one.
+     */
+    public void subtract(final ClusterFeature feature) {
+        this.combine(feature, -1);
+    }
+
+    private void combine(final ClusterFeature feature, final double sign) {
+
+        if (feature.dimensions != this.dimensions) {
+            throw new IllegalArgumentException("Expected " + this.dimensions + " features, got "
+                    + feature.dimensions);
+        }
+
+        this.n += sign * feature.n;
+
+        for (int i = 0; i < this.dimensions; ++i) {
+            this.linearSum[i] += sign * feature.linearSum[i];
+            this.squaredSum[i] += sign * feature.squaredSum[i];
+        }
+
+        this.timestampSum += sign * feature.timestampSum;
+        this.squaredTimestampSum += sign * feature.squaredTimestampSum;
+
+    }
+
+    /** Multiplies the weight of every summarized sample by the factor, which
+     * is how time-decayed summaries fade old samples out.
+     */
+    public void scale(final double factor) {
+
+        this.n *= factor;
+
+        for (int i = 0; i < this.dimensions; ++i) {
+            this.linearSum[i] *= factor;
+            this.squaredSum[i] *= factor;
+        }
+
+        this.timestampSum *= factor;
+        this.squaredTimestampSum *= factor;
+
+    }
+
+    public double[] calculateCentroid() {
+
+        final double[] centroid = new double[this.dimensions];
+        for (int i = 0; i < this.dimensions; ++i) {
+            centroid[i] = this.linearSum[i] / this.n;
+        }
+        return centroid;
+
+    }
+
+    /** Root mean squared distance of the samples to the centroid.
+     */
+    public double calculateRadius() {
+
+        double variance = 0;
+        for (int i = 0; i < this.dimensions; ++i) {
+            variance += this.calculateVariance(i);
+        }
+        return Math.sqrt(variance);
+
+    }
+
+    /** Standard deviation of the i-th feature of the samples.
+     */
+    public double calculateStandardDeviation(final int i) {
+        return Math.sqrt(this.calculateVariance(i));
+    }
+
+    private double calculateVariance(final int i) {
+
+        final double mean = this.linearSum[i] / this.n;
+        return Math.max(0, this.squaredSum[i] / this.n - mean * mean);
+
+    }
+
+    public double calculateMeanTimestamp() {
+        return this.timestampSum / this.n;
+    }
+
+    public double calculateTimestampStandardDeviation() {
+
+        final double mean = this.timestampSum / this.n;
+        return Math.sqrt(Math.max(0, this.squaredTimestampSum / this.n - mean * mean));
+
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    public double getN() {
+        return n;
+    }
+
+    /** Returns the backing array of linear sums, which must not be modified.
+     */
+    public double[] getLinearSum() {
+        return linearSum;
+    }
+
+    /** Returns the backing array of squared sums, which must not be modified.
+     */
+    public double[] getSquaredSum() {
+        return squaredSum;
+    }
+
+    public double getTimestampSum() {
+        return timestampSum;
+    }
+
+    public double getSquaredTimestampSum() {
+        return squaredTimestampSum;
+    }
+
+}
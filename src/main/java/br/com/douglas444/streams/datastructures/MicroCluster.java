@@ -0,0 +1,65 @@
+package br.com.douglas444.streams.datastructures;
+
+/** Summary of a group of close samples of a stream whose weights fade with
+ * time: a sample seen dt time units ago weighs 2^(-decayRate * dt). The decay
+ * is applied lazily, when the micro-cluster is updated or decayed to a given
+ * time.
+ */
+public class MicroCluster {
+
+    private final ClusterFeature feature;
+    private long lastUpdate;
+
+    public MicroCluster(final Sample sample) {
+        this.feature = new ClusterFeature(sample.getX().length);
+        this.feature.add(sample);
+        this.lastUpdate = sample.getT();
+    }
+
+    /** Fades the weights of the samples up to the given time.
+     */
+    public void decay(final long t, final double decayRate) {
+
+        if (t > this.lastUpdate) {
+            if (decayRate > 0) {
+                this.feature.scale(Math.pow(2, -decayRate * (t - this.lastUpdate)));
+            }
+            this.lastUpdate = t;
+        }
+
+    }
+
+    public void add(final Sample sample, final double decayRate) {
+        this.decay(sample.getT(), decayRate);
+        this.feature.add(sample);
+    }
+
+    /** Absorbs the other micro-cluster, which must have been decayed to the
+     * same time.
+     */
+    public void merge(final MicroCluster microCluster) {
+        this.feature.merge(microCluster.feature);
+        this.lastUpdate = Math.max(this.lastUpdate, microCluster.lastUpdate);
+    }
+
+    public double getWeight() {
+        return this.feature.getN();
+    }
+
+    public double[] calculateCentroid() {
+        return this.feature.calculateCentroid();
+    }
+
+    public double calculateRadius() {
+        return this.feature.calculateRadius();
+    }
+
+    public ClusterFeature getFeature() {
+        return feature;
+    }
+
+    public long getLastUpdate() {
+        return lastUpdate;
+    }
+
+}
@@ -1,7 +1,9 @@
 package br.com.douglas444.streams.datastructures;
 
+import br.com.douglas444.streams.distance.DistanceKernels;
+import br.com.douglas444.streams.distance.NearestCandidateSearch;
+
 import java.util.*;
-import java.util.stream.IntStream;
 
 public class Sample {
 
@@ -44,11 +46,14 @@ public class Sample {
     }
 
     public double distance(final Sample sample) {
-        double sum = 0;
-        for (int i = 0; i < sample.getX().length; ++i) {
-            sum += (sample.getX()[i] - this.getX()[i]) * (sample.getX()[i] - this.getX()[i]);
-        }
-        return Math.sqrt(sum);
+        return Math.sqrt(this.distanceSquared(sample));
+    }
+
+    /** Returns the squared euclidean distance to the sample, which orders
+     * samples the same way as distance but without the square root.
+     */
+    public double distanceSquared(final Sample sample) {
+        return DistanceKernels.get().squaredEuclidean(sample.getX(), 0, this.x, 0, sample.getX().length);
     }
 
     public void sum(final Sample sample) {
@@ -111,8 +116,8 @@ public class Sample {
             throw new IllegalArgumentException();
         }
 
-        return samples.stream().min(Comparator.comparing(this::distance))
-                .orElseGet(() -> samples.get(0));
+        final NearestCandidateSearch search = new NearestCandidateSearch();
+        return search.search(this.x, samples) ? samples.get(search.getIndex()) : samples.get(0);
 
     }
 
@@ -122,11 +127,8 @@ public class Sample {
             throw new IllegalArgumentException();
         }
 
-        final OptionalInt minIndex = IntStream.range(0, samples.length)
-                .reduce((i, j) -> samples[i].distance(this) >
-                        samples[j].distance(this) ? j : i);
-
-        return minIndex.orElse(0);
+        final NearestCandidateSearch search = new NearestCandidateSearch();
+        return search.search(this.x, samples) ? search.getIndex() : 0;
 
     }
 
@@ -0,0 +1,185 @@
+package br.com.douglas444.streams.datastructures;
+
+import br.com.douglas444.streams.distance.DistanceKernels;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Growable block of samples of the same dimensionality stored as primitive
+ * arrays: the features of all samples in one flat array, row after row, and
+ * the labels and timestamps in parallel arrays. Samples without label are
+ * stored with the label NO_LABEL.
+ */
+public class SampleBlock {
+
+    public static final int NO_LABEL = Integer.MIN_VALUE;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final int dimensions;
+    private double[] x;
+    private int[] y;
+    private long[] t;
+    private int size;
+
+    public SampleBlock(final int dimensions) {
+        this(dimensions, DEFAULT_CAPACITY);
+    }
+
+    public SampleBlock(final int dimensions, final int capacity) {
+
+        if (dimensions < 0 || capacity < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.dimensions = dimensions;
+        this.x = new double[dimensions * capacity];
+        this.y = new int[capacity];
+        this.t = new long[capacity];
+        this.size = 0;
+
+    }
+
+    public static SampleBlock of(final List<Sample> samples) {
+
+        if (samples.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+
+        final SampleBlock block = new SampleBlock(samples.get(0).getX().length, samples.size());
+        samples.forEach(block::add);
+        return block;
+
+    }
+
+    public int add(final Sample sample) {
+        return this.add(sample.getX(), sample.getY() != null ? sample.getY() : NO_LABEL, sample.getT());
+    }
+
+    public int add(final double[] x, final int y, final long t) {
+
+        if (x.length != this.dimensions) {
+            throw new IllegalArgumentException("Expected " + this.dimensions + " features, got " + x.length);
+        }
+
+        this.ensureCapacity(this.size + 1);
+        System.arraycopy(x, 0, this.x, this.size * this.dimensions, this.dimensions);
+        this.y[this.size] = y;
+        this.t[this.size] = t;
+        return this.size++;
+
+    }
+
+    public void ensureCapacity(final int capacity) {
+
+        if (capacity > this.y.length) {
+            final int newCapacity = Math.max(capacity, Math.max(DEFAULT_CAPACITY, this.y.length * 2));
+            this.x = Arrays.copyOf(this.x, newCapacity * this.dimensions);
+            this.y = Arrays.copyOf(this.y, newCapacity);
+            this.t = Arrays.copyOf(this.t, newCapacity);
+        }
+
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    public double get(final int i, final int j) {
+        return this.x[i * this.dimensions + j];
+    }
+
+    public void set(final int i, final int j, final double value) {
+        this.x[i * this.dimensions + j] = value;
+    }
+
+    public int getY(final int i) {
+        return this.y[i];
+    }
+
+    public void setY(final int i, final int y) {
+        this.y[i] = y;
+    }
+
+    public long getT(final int i) {
+        return this.t[i];
+    }
+
+    public void setT(final int i, final long t) {
+        this.t[i] = t;
+    }
+
+    /** Returns the features of the i-th sample as a new array.
+     */
+    public double[] getX(final int i) {
+        return Arrays.copyOfRange(this.x, i * this.dimensions, (i + 1) * this.dimensions);
+    }
+
+    /** Returns a new Sample with a copy of the i-th sample of the block.
+     */
+    public Sample getSample(final int i) {
+
+        final int y = this.y[i];
+        final Sample sample = new Sample(this.getX(i), y != NO_LABEL ? y : null);
+        sample.setT(this.t[i]);
+        return sample;
+
+    }
+
+    /** Returns a read-only list view of the block. Each access creates a new
+     * Sample with a copy of the accessed sample.
+     */
+    public List<Sample> asSamples() {
+
+        return new AbstractList<Sample>() {
+
+            @Override
+            public Sample get(final int index) {
+                if (index >= SampleBlock.this.size) {
+                    throw new IndexOutOfBoundsException();
+                }
+                return SampleBlock.this.getSample(index);
+            }
+
+            @Override
+            public int size() {
+                return SampleBlock.this.size;
+            }
+
+        };
+
+    }
+
+    /** Squared euclidean distance between the i-th sample and the point held
+     * in point[offset, offset + dimensions).
+     */
+    public double distanceSquared(final int i, final double[] point, final int offset) {
+        return DistanceKernels.get().squaredEuclidean(this.x, i * this.dimensions, point, offset, this.dimensions);
+    }
+
+    public double distanceSquared(final int i, final SampleBlock block, final int j) {
+        return this.distanceSquared(i, block.x, j * block.dimensions);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /** Returns the backing array of features, where the j-th feature of the
+     * i-th sample is at index i * dimensions + j. Only the first size rows are
+     * meaningful, and the array is replaced when the block grows.
+     */
+    public double[] getData() {
+        return x;
+    }
+
+}
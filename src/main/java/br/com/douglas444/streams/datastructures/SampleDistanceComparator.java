@@ -20,8 +20,9 @@ public class SampleDistanceComparator implements Comparator<Sample> {
     @Override
     public int compare(final Sample p1, final Sample p2) {
 
-        final double d1 = p1.distance(this.target);
-        final double d2 = p2.distance(this.target);
+        //Squared distances order samples the same way as distances
+        final double d1 = p1.distanceSquared(this.target);
+        final double d2 = p2.distanceSquared(this.target);
 
         return Double.compare(d1, d2);
     }
@@ -0,0 +1,73 @@
+package br.com.douglas444.streams.distance;
+
+/** Computes euclidean distances between points stored in double arrays.
+ * Points are read from an array starting at an offset, so that both separate
+ * arrays and rows of flat row-major arrays can be used. Callers that only
+ * compare distances should use the squared variants, which skip the square
+ * root.
+ */
+public interface DistanceKernel {
+
+    double squaredEuclidean(final double[] a, final int aOffset, final double[] b, final int bOffset, final int length);
+
+    /** Early-abandoning form: stops accumulating once the partial sum exceeds
+     * the bound. The result is exact when it is not greater than the bound,
+     * and otherwise only known to be greater than it.
+     */
+    default double squaredEuclidean(final double[] a,
+                                    final int aOffset,
+                                    final double[] b,
+                                    final int bOffset,
+                                    final int length,
+                                    final double bound) {
+
+        return squaredEuclidean(a, aOffset, b, bOffset, length);
+    }
+
+    default double squaredEuclidean(final double[] a, final double[] b) {
+        return squaredEuclidean(a, 0, b, 0, a.length);
+    }
+
+    default double euclidean(final double[] a, final int aOffset, final double[] b, final int bOffset, final int length) {
+        return Math.sqrt(squaredEuclidean(a, aOffset, b, bOffset, length));
+    }
+
+    default double euclidean(final double[] a, final double[] b) {
+        return Math.sqrt(squaredEuclidean(a, 0, b, 0, a.length));
+    }
+
+    /** One-to-many form: writes to out[i] the squared distance between the
+     * point and the i-th of the count rows of dimension d stored in points.
+     */
+    default void squaredEuclideanOneToMany(final double[] point,
+                                           final int pointOffset,
+                                           final double[] points,
+                                           final int count,
+                                           final int d,
+                                           final double[] out) {
+
+        for (int i = 0; i < count; ++i) {
+            out[i] = squaredEuclidean(point, pointOffset, points, i * d, d);
+        }
+
+    }
+
+    /** Many-to-many form: writes to out[i * bCount + j] the squared distance
+     * between the i-th row of a and the j-th row of b, both of dimension d.
+     */
+    default void squaredEuclideanManyToMany(final double[] a,
+                                            final int aCount,
+                                            final double[] b,
+                                            final int bCount,
+                                            final int d,
+                                            final double[] out) {
+
+        for (int i = 0; i < aCount; ++i) {
+            for (int j = 0; j < bCount; ++j) {
+                out[i * bCount + j] = squaredEuclidean(a, i * d, b, j * d, d);
+            }
+        }
+
+    }
+
+}
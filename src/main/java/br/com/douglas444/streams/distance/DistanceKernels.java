@@ -0,0 +1,29 @@
+package br.com.douglas444.streams.distance;
+
+/** Holds the distance kernel used by the library. It defaults to
+ * {@link ScalarDistanceKernel}; an application running on a JDK with a faster
+ * implementation available (for instance one based on the Vector API) can
+ * install it once at startup.
+ */
+public final class DistanceKernels {
+
+    private static volatile DistanceKernel kernel = new ScalarDistanceKernel();
+
+    private DistanceKernels() {
+    }
+
+    public static DistanceKernel get() {
+        return kernel;
+    }
+
+    public static void set(final DistanceKernel distanceKernel) {
+
+        if (distanceKernel == null) {
+            throw new IllegalArgumentException();
+        }
+
+        kernel = distanceKernel;
+
+    }
+
+}
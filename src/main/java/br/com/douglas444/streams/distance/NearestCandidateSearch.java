@@ -0,0 +1,122 @@
+package br.com.douglas444.streams.distance;
+
+import br.com.douglas444.streams.datastructures.Sample;
+
+import java.util.List;
+
+/** Finds the candidate closest to a point. The distance to each candidate is
+ * accumulated with the early-abandoning form of the kernel, bounded by the
+ * best distance found so far, so most of the arithmetic for distant
+ * candidates is skipped in high dimensions. An optional upper bound excludes
+ * candidates farther than it from the start.
+ *
+ * The result is kept in the instance as primitives, which can be reused for
+ * any number of searches.
+ */
+public final class NearestCandidateSearch {
+
+    private int index;
+    private double distanceSquared;
+
+    public NearestCandidateSearch() {
+        this.index = -1;
+        this.distanceSquared = Double.POSITIVE_INFINITY;
+    }
+
+    /** Searches the count rows of dimension d stored in candidates.
+     *
+     * @param upperBoundSquared squared distance above which candidates are
+     *                          ignored, or Double.POSITIVE_INFINITY.
+     * @return whether a candidate was found within the bound.
+     */
+    public boolean search(final double[] point,
+                          final int pointOffset,
+                          final double[] candidates,
+                          final int count,
+                          final int d,
+                          final double upperBoundSquared) {
+
+        final DistanceKernel kernel = DistanceKernels.get();
+        int index = -1;
+        double best = upperBoundSquared;
+
+        for (int i = 0; i < count; ++i) {
+            final double distance = kernel.squaredEuclidean(point, pointOffset, candidates, i * d, d, best);
+            if (distance < best || (index == -1 && distance == best)) {
+                best = distance;
+                index = i;
+            }
+        }
+
+        return this.setResult(index, best);
+
+    }
+
+    public boolean search(final double[] point, final List<Sample> candidates, final double upperBoundSquared) {
+
+        final DistanceKernel kernel = DistanceKernels.get();
+        int index = -1;
+        double best = upperBoundSquared;
+
+        for (int i = 0; i < candidates.size(); ++i) {
+            final double distance = kernel.squaredEuclidean(point, 0, candidates.get(i).getX(), 0, point.length, best);
+            if (distance < best || (index == -1 && distance == best)) {
+                best = distance;
+                index = i;
+            }
+        }
+
+        return this.setResult(index, best);
+
+    }
+
+    public boolean search(final double[] point, final Sample[] candidates, final double upperBoundSquared) {
+
+        final DistanceKernel kernel = DistanceKernels.get();
+        int index = -1;
+        double best = upperBoundSquared;
+
+        for (int i = 0; i < candidates.length; ++i) {
+            final double distance = kernel.squaredEuclidean(point, 0, candidates[i].getX(), 0, point.length, best);
+            if (distance < best || (index == -1 && distance == best)) {
+                best = distance;
+                index = i;
+            }
+        }
+
+        return this.setResult(index, best);
+
+    }
+
+    public boolean search(final double[] point, final List<Sample> candidates) {
+        return this.search(point, candidates, Double.POSITIVE_INFINITY);
+    }
+
+    public boolean search(final double[] point, final Sample[] candidates) {
+        return this.search(point, candidates, Double.POSITIVE_INFINITY);
+    }
+
+    private boolean setResult(final int index, final double distanceSquared) {
+
+        this.index = index;
+        this.distanceSquared = index == -1 ? Double.POSITIVE_INFINITY : distanceSquared;
+        return index != -1;
+
+    }
+
+    /** Index of the closest candidate of the last search, or -1 if none was
+     * found within the bound.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public double getDistanceSquared() {
+        return distanceSquared;
+    }
+
+    public double getDistance() {
+        return Math.sqrt(distanceSquared);
+    }
+
+}
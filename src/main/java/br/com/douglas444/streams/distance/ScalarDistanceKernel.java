@@ -0,0 +1,73 @@
+package br.com.douglas444.streams.distance;
+
+/** Distance kernel written in plain Java. The main loop is unrolled by four
+ * with independent accumulators, which breaks the dependency chain of a single
+ * running sum and lets the CPU overlap the additions.
+ */
+public final class ScalarDistanceKernel implements DistanceKernel {
+
+    private static final int BLOCK_SIZE = 16;
+
+    @Override
+    public double squaredEuclidean(final double[] a,
+                                   final int aOffset,
+                                   final double[] b,
+                                   final int bOffset,
+                                   final int length) {
+
+        double sum0 = 0;
+        double sum1 = 0;
+        double sum2 = 0;
+        double sum3 = 0;
+
+        final int unrolledLength = length & ~3;
+        int i = 0;
+
+        for (; i < unrolledLength; i += 4) {
+            final double difference0 = a[aOffset + i] - b[bOffset + i];
+            final double difference1 = a[aOffset + i + 1] - b[bOffset + i + 1];
+            final double difference2 = a[aOffset + i + 2] - b[bOffset + i + 2];
+            final double difference3 = a[aOffset + i + 3] - b[bOffset + i + 3];
+            sum0 += difference0 * difference0;
+            sum1 += difference1 * difference1;
+            sum2 += difference2 * difference2;
+            sum3 += difference3 * difference3;
+        }
+
+        for (; i < length; ++i) {
+            final double difference = a[aOffset + i] - b[bOffset + i];
+            sum0 += difference * difference;
+        }
+
+        return (sum0 + sum1) + (sum2 + sum3);
+
+    }
+
+    /** Checks the partial sum against the bound every BLOCK_SIZE dimensions,
+     * so that the check costs little next to the arithmetic it can skip.
+     */
+    @Override
+    public double squaredEuclidean(final double[] a,
+                                   final int aOffset,
+                                   final double[] b,
+                                   final int bOffset,
+                                   final int length,
+                                   final double bound) {
+
+        double sum = 0;
+        int start = 0;
+
+        while (start < length) {
+            final int blockLength = Math.min(BLOCK_SIZE, length - start);
+            sum += this.squaredEuclidean(a, aOffset + start, b, bOffset + start, blockLength);
+            if (sum > bound) {
+                return sum;
+            }
+            start += blockLength;
+        }
+
+        return sum;
+
+    }
+
+}
@@ -0,0 +1,105 @@
+package br.com.douglas444.streams.distance;
+
+import br.com.douglas444.streams.datastructures.Sample;
+
+import java.util.List;
+
+/** Finds the k candidates closest to a point, computing the distance to each
+ * candidate once. The k best candidates seen so far are kept in a
+ * {@link TopKHeap} of primitive (index, squared distance) pairs, and once it
+ * is full the distance to the next candidates is accumulated with the
+ * early-abandoning form of the kernel, bounded by the farthest of them. This costs O(n log k)
+ * against the O(n log n) distance evaluations of sorting the candidates with
+ * a SampleDistanceComparator.
+ *
+ * Like {@link NearestCandidateSearch}, the result is kept in the instance,
+ * which can be reused for any number of searches with the same k.
+ */
+public final class TopKCandidateSearch {
+
+    private final TopKHeap heap;
+
+    public TopKCandidateSearch(final int k) {
+        this.heap = new TopKHeap(k);
+    }
+
+    /** Searches the count rows of dimension d stored in candidates.
+     *
+     * @return the number of candidates found, which is k unless there are
+     * less than k candidates.
+     */
+    public int search(final double[] point,
+                      final int pointOffset,
+                      final double[] candidates,
+                      final int count,
+                      final int d) {
+
+        final DistanceKernel kernel = DistanceKernels.get();
+        this.heap.clear();
+
+        for (int i = 0; i < count; ++i) {
+            final double bound = this.heap.getBound();
+            final double distance = kernel.squaredEuclidean(point, pointOffset, candidates, i * d, d, bound);
+            this.heap.offer(i, distance);
+        }
+
+        return this.heap.sort();
+
+    }
+
+    public int search(final double[] point, final List<Sample> candidates) {
+
+        final DistanceKernel kernel = DistanceKernels.get();
+        this.heap.clear();
+
+        for (int i = 0; i < candidates.size(); ++i) {
+            final double bound = this.heap.getBound();
+            final double distance = kernel.squaredEuclidean(point, 0, candidates.get(i).getX(), 0, point.length, bound);
+            this.heap.offer(i, distance);
+        }
+
+        return this.heap.sort();
+
+    }
+
+    public int search(final double[] point, final Sample[] candidates) {
+
+        final DistanceKernel kernel = DistanceKernels.get();
+        this.heap.clear();
+
+        for (int i = 0; i < candidates.length; ++i) {
+            final double bound = this.heap.getBound();
+            final double distance = kernel.squaredEuclidean(point, 0, candidates[i].getX(), 0, point.length, bound);
+            this.heap.offer(i, distance);
+        }
+
+        return this.heap.sort();
+
+    }
+
+    /** Number of candidates found by the last search.
+     */
+    public int size() {
+        return this.heap.size();
+    }
+
+    /** Index among the candidates of the i-th closest candidate of the last
+     * search.
+     */
+    public int getIndex(final int i) {
+        return this.heap.getIndex(i);
+    }
+
+    public double getDistanceSquared(final int i) {
+        return this.heap.getDistanceSquared(i);
+    }
+
+    public double getDistance(final int i) {
+        return this.heap.getDistance(i);
+    }
+
+    public int getK() {
+        return this.heap.getK();
+    }
+
+}
@@ -0,0 +1,176 @@
+package br.com.douglas444.streams.distance;
+
+import java.util.Arrays;
+
+/** Keeps the k closest of the (index, squared distance) pairs offered so far
+ * in a bounded max-heap of primitives, so that the farthest kept pair can be
+ * replaced in O(log k). Until k pairs are kept, pairs farther than a given
+ * bound are rejected, so that with k = Integer.MAX_VALUE and a radius it
+ * keeps every pair within the radius instead. The arrays grow as needed up to
+ * k, so a large k costs nothing up front.
+ */
+public final class TopKHeap {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int k;
+    private final double boundSquared;
+    private int[] indexes;
+    private double[] distancesSquared;
+    private int size;
+
+    public TopKHeap(final int k) {
+        this(k, Double.POSITIVE_INFINITY);
+    }
+
+    public TopKHeap(final int k, final double boundSquared) {
+
+        if (k < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.k = k;
+        this.boundSquared = boundSquared;
+        final int capacity = Math.min(k, INITIAL_CAPACITY);
+        this.indexes = new int[capacity];
+        this.distancesSquared = new double[capacity];
+        this.size = 0;
+
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    /** Squared distance beyond which offered pairs are rejected, which is the
+     * one of the farthest kept pair once the heap is full.
+     */
+    public double getBound() {
+        return this.size < this.k ? this.boundSquared : this.distancesSquared[0];
+    }
+
+    /** Whether a pair at the given squared distance would be kept. Once the
+     * heap is full, a pair as far as the farthest kept one is not.
+     */
+    public boolean accepts(final double distanceSquared) {
+        return this.size < this.k ? distanceSquared <= this.boundSquared : distanceSquared < this.distancesSquared[0];
+    }
+
+    public boolean isFull() {
+        return this.size == this.k;
+    }
+
+    /** Index of the farthest kept pair, which is the one replaced by the next
+     * accepted pair once the heap is full.
+     */
+    public int getFarthestIndex() {
+        return this.indexes[0];
+    }
+
+    /** Keeps the pair if it is accepted, replacing the farthest kept pair if
+     * the heap is full.
+     *
+     * @return whether the pair was kept.
+     */
+    public boolean offer(final int index, final double distanceSquared) {
+
+        if (!this.accepts(distanceSquared)) {
+            return false;
+        }
+
+        if (this.size == this.k) {
+            this.siftDown(index, distanceSquared, this.size);
+            return true;
+        }
+
+        if (this.size == this.indexes.length) {
+            final int capacity = (int) Math.min(this.k, 2L * this.indexes.length);
+            this.indexes = Arrays.copyOf(this.indexes, capacity);
+            this.distancesSquared = Arrays.copyOf(this.distancesSquared, capacity);
+        }
+
+        int i = this.size++;
+        while (i > 0) {
+            final int parent = (i - 1) / 2;
+            if (this.distancesSquared[parent] >= distanceSquared) {
+                break;
+            }
+            this.indexes[i] = this.indexes[parent];
+            this.distancesSquared[i] = this.distancesSquared[parent];
+            i = parent;
+        }
+        this.indexes[i] = index;
+        this.distancesSquared[i] = distanceSquared;
+        return true;
+
+    }
+
+    /** Places the pair at the root of the heap of the given size and moves it
+     * down to its position.
+     */
+    private void siftDown(final int index, final double distanceSquared, final int size) {
+
+        int i = 0;
+        while (true) {
+            final int left = 2 * i + 1;
+            if (left >= size) {
+                break;
+            }
+            final int right = left + 1;
+            final int largest = right < size && this.distancesSquared[right] > this.distancesSquared[left] ? right : left;
+            if (this.distancesSquared[largest] <= distanceSquared) {
+                break;
+            }
+            this.indexes[i] = this.indexes[largest];
+            this.distancesSquared[i] = this.distancesSquared[largest];
+            i = largest;
+        }
+        this.indexes[i] = index;
+        this.distancesSquared[i] = distanceSquared;
+
+    }
+
+    /** Heapsorts the kept pairs in place, closest first. The heap must be
+     * cleared before offering more pairs.
+     *
+     * @return the number of kept pairs.
+     */
+    public int sort() {
+
+        for (int end = this.size - 1; end > 0; --end) {
+            final int index = this.indexes[0];
+            final double distanceSquared = this.distancesSquared[0];
+            this.siftDown(this.indexes[end], this.distancesSquared[end], end);
+            this.indexes[end] = index;
+            this.distancesSquared[end] = distanceSquared;
+        }
+
+        return this.size;
+
+    }
+
+    /** Number of kept pairs.
+     */
+    public int size() {
+        return size;
+    }
+
+    /** Index of the i-th kept pair, which after sort is the i-th closest.
+     */
+    public int getIndex(final int i) {
+        return this.indexes[i];
+    }
+
+    public double getDistanceSquared(final int i) {
+        return this.distancesSquared[i];
+    }
+
+    public double getDistance(final int i) {
+        return Math.sqrt(this.distancesSquared[i]);
+    }
+
+    public int getK() {
+        return k;
+    }
+
+}
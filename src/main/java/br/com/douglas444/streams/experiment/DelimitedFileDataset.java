@@ -0,0 +1,66 @@
+package br.com.douglas444.streams.experiment;
+
+import br.com.douglas444.streams.processor.StreamsFileReader;
+import br.com.douglas444.streams.processor.StreamsReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/** Dataset stored as a delimited data file, with the label as last field of
+ * each line or in a separate label file.
+ */
+public class DelimitedFileDataset implements StreamsDataset {
+
+    private final String name;
+    private final char separator;
+    private final Path dataFile;
+    private final Path labelFile;
+
+    public DelimitedFileDataset(final String name, final char separator, final Path dataFile) {
+        this(name, separator, dataFile, null);
+    }
+
+    public DelimitedFileDataset(final String name,
+                                final char separator,
+                                final Path dataFile,
+                                final Path labelFile) {
+
+        this.name = name;
+        this.separator = separator;
+        this.dataFile = dataFile;
+        this.labelFile = labelFile;
+
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public StreamsReader[] open() throws IOException {
+
+        final StreamsFileReader streamsFileReader = this.labelFile != null
+                ? new StreamsFileReader(this.separator,
+                        Files.newInputStream(this.dataFile),
+                        Files.newInputStream(this.labelFile))
+                : new StreamsFileReader(this.separator, Files.newInputStream(this.dataFile));
+
+        return new StreamsReader[]{streamsFileReader};
+
+    }
+
+    @Override
+    public long estimateSize() {
+
+        try {
+            return Files.size(this.dataFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+    }
+
+}
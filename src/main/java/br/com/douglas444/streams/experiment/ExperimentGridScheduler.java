@@ -0,0 +1,229 @@
+package br.com.douglas444.streams.experiment;
+
+import br.com.douglas444.streams.processor.StreamsProcessor;
+import br.com.douglas444.streams.processor.StreamsProcessorExecutor;
+import br.com.douglas444.streams.processor.StreamsReader;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/** Runs a grid of independent experiment jobs concurrently inside one JVM.
+ * At most a fixed number of jobs, by default the number of available cores,
+ * run at the same time, and the jobs over the largest datasets are started
+ * first so that a long job does not end up running alone at the end. Jobs run
+ * on virtual threads when the JDK provides them, and on a platform thread
+ * pool otherwise.
+ *
+ * For every job, the logs of the processor are written to its own file in the
+ * results directory, and a summary with the timing of all jobs is written to
+ * results.csv in that same directory. A job that throws, even an error, is
+ * recorded as failed without stopping the others, and its readers are closed
+ * however it ends.
+ */
+public class ExperimentGridScheduler {
+
+    private final Path resultsDirectory;
+    private final int workers;
+    private final int classifierLoggingTimestampInterval;
+
+    public ExperimentGridScheduler(final Path resultsDirectory) {
+        this(resultsDirectory, Runtime.getRuntime().availableProcessors(), 0);
+    }
+
+    public ExperimentGridScheduler(final Path resultsDirectory,
+                                   final int workers,
+                                   final int classifierLoggingTimestampInterval) {
+
+        if (workers < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.resultsDirectory = resultsDirectory;
+        this.workers = Math.min(workers, Runtime.getRuntime().availableProcessors());
+        this.classifierLoggingTimestampInterval = classifierLoggingTimestampInterval;
+
+    }
+
+    public List<ExperimentResult> run(final List<ExperimentJob> jobs) throws IOException {
+
+        Files.createDirectories(this.resultsDirectory);
+
+        final List<ExperimentJob> sortedJobs = new ArrayList<>(jobs);
+        sortedJobs.sort(Comparator.comparingLong((ExperimentJob job) -> job.getDataset().estimateSize()).reversed());
+
+        final Semaphore permits = new Semaphore(this.workers, true);
+        final ExecutorService executorService = newExecutorService(this.workers);
+        final List<Future<ExperimentResult>> futures = new ArrayList<>();
+        final List<Path> logFiles = new ArrayList<>();
+
+        try {
+
+            for (int i = 0; i < sortedJobs.size(); ++i) {
+
+                final ExperimentJob job = sortedJobs.get(i);
+                final Path logFile = this.resultsDirectory.resolve(
+                        String.format("%04d-%s.log", i, sanitize(job.getName())));
+                logFiles.add(logFile);
+
+                //Acquiring here, in submission order, keeps the longest-first order
+                permits.acquire();
+
+                try {
+                    futures.add(executorService.submit(() -> {
+                        try {
+                            return this.runJob(job, logFile);
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                } catch (RuntimeException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+
+            final List<ExperimentResult> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); ++i) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    //runJob catches everything, so this only happens if the executor itself failed
+                    results.add(new ExperimentResult(sortedJobs.get(i), 0, false, e.getCause(), logFiles.get(i)));
+                }
+            }
+
+            this.writeSummary(results);
+            return results;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            executorService.shutdownNow();
+        }
+
+    }
+
+    private ExperimentResult runJob(final ExperimentJob job, final Path logFile) {
+
+        final long start = System.nanoTime();
+
+        try (PrintStream logStream = new PrintStream(Files.newOutputStream(logFile), false, "UTF-8");
+             OpenReaders readers = new OpenReaders(job.getDataset().open())) {
+
+            final StreamsProcessor streamsProcessor = job.getStreamsProcessorBuilder().build(job.getSeed());
+            final StreamsProcessorExecutor executor = new StreamsProcessorExecutor(logStream);
+
+            final boolean completed = executor.start(streamsProcessor,
+                    this.classifierLoggingTimestampInterval,
+                    readers.streamsReaders);
+
+            logStream.println(streamsProcessor.getLog());
+            return new ExperimentResult(job, System.nanoTime() - start, completed, null, logFile);
+
+        } catch (Throwable e) {
+            return new ExperimentResult(job, System.nanoTime() - start, false, e, logFile);
+        }
+
+    }
+
+    private void writeSummary(final List<ExperimentResult> results) throws IOException {
+
+        try (BufferedWriter writer = Files.newBufferedWriter(
+                this.resultsDirectory.resolve("results.csv"), StandardCharsets.UTF_8)) {
+
+            writer.write("job,dataset,seed,elapsed_ms,completed,failure,log_file");
+            writer.newLine();
+
+            for (ExperimentResult result : results) {
+                final ExperimentJob job = result.getJob();
+                writer.write(String.join(",",
+                        quote(job.getName()),
+                        quote(job.getDataset().getName()),
+                        Long.toString(job.getSeed()),
+                        Long.toString(result.getElapsedNanos() / 1_000_000),
+                        Boolean.toString(result.isCompleted()),
+                        quote(result.getFailure() != null ? result.getFailure().toString() : ""),
+                        quote(result.getLogFile().getFileName().toString())));
+                writer.newLine();
+            }
+        }
+
+    }
+
+    /** Returns an executor that starts a virtual thread per task when running
+     * on a JDK that supports them, or a pool of platform threads otherwise.
+     */
+    private static ExecutorService newExecutorService(final int workers) {
+
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(workers);
+        }
+
+    }
+
+    private static String sanitize(final String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static String quote(final String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    /** Closes the readers of a dataset that hold resources, as readers
+     * only release them by themselves once their stream is over.
+     */
+    private static final class OpenReaders implements Closeable {
+
+        private final StreamsReader[] streamsReaders;
+
+        private OpenReaders(final StreamsReader[] streamsReaders) {
+            this.streamsReaders = streamsReaders;
+        }
+
+        @Override
+        public void close() throws IOException {
+
+            IOException exception = null;
+
+            for (StreamsReader streamsReader : this.streamsReaders) {
+                if (streamsReader instanceof Closeable) {
+                    try {
+                        ((Closeable) streamsReader).close();
+                    } catch (IOException e) {
+                        if (exception == null) {
+                            exception = e;
+                        } else {
+                            exception.addSuppressed(e);
+                        }
+                    }
+                }
+            }
+
+            if (exception != null) {
+                throw exception;
+            }
+
+        }
+
+    }
+
+}
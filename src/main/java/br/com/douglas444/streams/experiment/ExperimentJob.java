@@ -0,0 +1,40 @@
+package br.com.douglas444.streams.experiment;
+
+import br.com.douglas444.streams.processor.StreamsProcessorBuilder;
+
+public class ExperimentJob {
+
+    private final String name;
+    private final StreamsProcessorBuilder streamsProcessorBuilder;
+    private final StreamsDataset dataset;
+    private final long seed;
+
+    public ExperimentJob(final String name,
+                         final StreamsProcessorBuilder streamsProcessorBuilder,
+                         final StreamsDataset dataset,
+                         final long seed) {
+
+        this.name = name;
+        this.streamsProcessorBuilder = streamsProcessorBuilder;
+        this.dataset = dataset;
+        this.seed = seed;
+
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public StreamsProcessorBuilder getStreamsProcessorBuilder() {
+        return streamsProcessorBuilder;
+    }
+
+    public StreamsDataset getDataset() {
+        return dataset;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+}
@@ -0,0 +1,53 @@
+package br.com.douglas444.streams.experiment;
+
+import java.nio.file.Path;
+
+public class ExperimentResult {
+
+    private final ExperimentJob job;
+    private final long elapsedNanos;
+    private final boolean completed;
+    private final Throwable failure;
+    private final Path logFile;
+
+    ExperimentResult(final ExperimentJob job,
+                     final long elapsedNanos,
+                     final boolean completed,
+                     final Throwable failure,
+                     final Path logFile) {
+
+        this.job = job;
+        this.elapsedNanos = elapsedNanos;
+        this.completed = completed;
+        this.failure = failure;
+        this.logFile = logFile;
+
+    }
+
+    public ExperimentJob getJob() {
+        return job;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /** Whether the whole dataset was processed without failure.
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /** Exception or error that stopped the job, or null.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /** File with the logs of the processor during and at the end of the run.
+     */
+    public Path getLogFile() {
+        return logFile;
+    }
+
+}
@@ -0,0 +1,20 @@
+package br.com.douglas444.streams.experiment;
+
+import br.com.douglas444.streams.processor.StreamsReader;
+
+import java.io.IOException;
+
+public interface StreamsDataset {
+
+    String getName();
+
+    /** Opens new readers over the dataset, to be consumed in order. Called
+     * once per job, so every job gets its own readers.
+     */
+    StreamsReader[] open() throws IOException;
+
+    /** Estimated size of the dataset, used to start the longest jobs first.
+     */
+    long estimateSize();
+
+}
@@ -0,0 +1,381 @@
+package br.com.douglas444.streams.index;
+
+import br.com.douglas444.streams.datastructures.Sample;
+import br.com.douglas444.streams.distance.DistanceKernels;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** KD-tree over samples, suited to low dimensionalities. Samples are
+ * inserted at the leaves, splitting on the dimensions in turn, and removed
+ * lazily by marking their node as deleted. Like a scapegoat tree, when an
+ * insertion lands deeper than log(n) / log(1 / ALPHA), the highest subtree on
+ * its path with a child holding more than ALPHA of its nodes is rebuilt
+ * balanced, splitting at the median. This keeps the depth logarithmic at an
+ * amortized O(log n) cost per insertion, even for the monotone input of a
+ * drifting stream. The whole tree is rebuilt when most of its nodes are
+ * deleted.
+ */
+public class KDTreeSampleIndex implements SampleIndex {
+
+    private static final int MINIMUM_REBUILD_SIZE = 32;
+    private static final double ALPHA = 0.7;
+    private static final double LOG_INVERSE_ALPHA = Math.log(1 / ALPHA);
+
+    private final int dimensions;
+    private final Map<Sample, Node> nodeBySample;
+    private Node root;
+    private int deletedCount;
+
+    public KDTreeSampleIndex(final int dimensions) {
+
+        if (dimensions < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.dimensions = dimensions;
+        this.nodeBySample = new IdentityHashMap<>();
+        this.root = null;
+        this.deletedCount = 0;
+
+    }
+
+    public KDTreeSampleIndex(final List<Sample> samples) {
+
+        this(samples.get(0).getX().length);
+        samples.forEach(this::checkDimensions);
+
+        final List<Node> nodes = new ArrayList<>(samples.size());
+        for (Sample sample : samples) {
+            if (!this.nodeBySample.containsKey(sample)) {
+                final Node node = new Node(sample);
+                this.nodeBySample.put(sample, node);
+                nodes.add(node);
+            }
+        }
+
+        this.root = build(nodes, 0, nodes.size(), 0);
+
+    }
+
+    @Override
+    public void insert(final Sample sample) {
+
+        this.checkDimensions(sample);
+
+        if (this.nodeBySample.containsKey(sample)) {
+            return;
+        }
+
+        final Node node = new Node(sample);
+        this.nodeBySample.put(sample, node);
+
+        if (this.root == null) {
+            this.root = node;
+            return;
+        }
+
+        Node parent = this.root;
+        int depth = 0;
+        while (true) {
+            ++parent.size;
+            ++depth;
+            if (sample.getX()[parent.axis] < parent.x[parent.axis]) {
+                if (parent.left == null) {
+                    parent.left = node;
+                    break;
+                }
+                parent = parent.left;
+            } else {
+                if (parent.right == null) {
+                    parent.right = node;
+                    break;
+                }
+                parent = parent.right;
+            }
+        }
+        node.axis = (parent.axis + 1) % this.dimensions;
+
+        if (depth > Math.log(this.root.size) / LOG_INVERSE_ALPHA) {
+            this.rebuildScapegoat(sample.getX());
+        }
+
+    }
+
+    /** Rebuilds the highest subtree on the path to the point with a child
+     * holding more than ALPHA of its nodes, of which there is one when the
+     * path is deeper than log(n) / log(1 / ALPHA). Deleted nodes of the
+     * subtree are dropped.
+     */
+    private void rebuildScapegoat(final double[] point) {
+
+        Node parent = null;
+        Node node = this.root;
+        while (true) {
+            final Node child = point[node.axis] < node.x[node.axis] ? node.left : node.right;
+            if (child == null) {
+                return;
+            }
+            if (child.size > ALPHA * node.size) {
+                break;
+            }
+            parent = node;
+            node = child;
+        }
+
+        final List<Node> nodes = new ArrayList<>(node.size);
+        final List<Node> stack = new ArrayList<>();
+        stack.add(node);
+        while (!stack.isEmpty()) {
+            final Node current = stack.remove(stack.size() - 1);
+            if (current.left != null) {
+                stack.add(current.left);
+            }
+            if (current.right != null) {
+                stack.add(current.right);
+            }
+            current.left = null;
+            current.right = null;
+            if (!current.deleted) {
+                nodes.add(current);
+            }
+        }
+
+        final int dropped = node.size - nodes.size();
+        this.deletedCount -= dropped;
+        for (Node ancestor = this.root; ancestor != node; ) {
+            ancestor.size -= dropped;
+            ancestor = point[ancestor.axis] < ancestor.x[ancestor.axis] ? ancestor.left : ancestor.right;
+        }
+
+        final Node subtree = build(nodes, 0, nodes.size(), node.axis);
+        if (parent == null) {
+            this.root = subtree;
+        } else if (parent.left == node) {
+            parent.left = subtree;
+        } else {
+            parent.right = subtree;
+        }
+
+    }
+
+    @Override
+    public boolean remove(final Sample sample) {
+
+        final Node node = this.nodeBySample.remove(sample);
+        if (node == null) {
+            return false;
+        }
+
+        node.deleted = true;
+        ++this.deletedCount;
+
+        if (this.nodeBySample.isEmpty()) {
+            this.root = null;
+            this.deletedCount = 0;
+        } else if (this.deletedCount > Math.max(MINIMUM_REBUILD_SIZE, this.nodeBySample.size())) {
+            this.rebuild();
+        }
+
+        return true;
+
+    }
+
+    @Override
+    public int size() {
+        return this.nodeBySample.size();
+    }
+
+    @Override
+    public List<Neighbour> nearest(final Sample query, final int k) {
+
+        if (k < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.checkDimensions(query);
+        final NeighbourCollector collector = new NeighbourCollector(k, Double.POSITIVE_INFINITY);
+        this.search(query.getX(), collector);
+        return collector.toList();
+
+    }
+
+    @Override
+    public List<Neighbour> withinRadius(final Sample query, final double radius) {
+
+        if (radius < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.checkDimensions(query);
+        final NeighbourCollector collector = new NeighbourCollector(Integer.MAX_VALUE, radius * radius);
+        this.search(query.getX(), collector);
+        return collector.toList();
+
+    }
+
+    /** Depth-first search with an explicit stack, each subtree being paired
+     * with the squared distance from the point to the splitting plane that
+     * separates it from the point, or zero if none does.
+     */
+    private void search(final double[] point, final NeighbourCollector collector) {
+
+        if (this.root == null) {
+            return;
+        }
+
+        Node[] nodes = new Node[64];
+        double[] planeDistances = new double[64];
+        int size = 0;
+        nodes[size] = this.root;
+        planeDistances[size++] = 0;
+
+        while (size > 0) {
+
+            final Node node = nodes[--size];
+            if (planeDistances[size] > collector.getBound()) {
+                continue;
+            }
+
+            if (!node.deleted) {
+                final double bound = collector.getBound();
+                final double distanceSquared = DistanceKernels.get()
+                        .squaredEuclidean(point, 0, node.x, 0, this.dimensions, bound);
+                if (distanceSquared <= bound) {
+                    collector.offer(node.sample, distanceSquared);
+                }
+            }
+
+            if (size + 2 > nodes.length) {
+                nodes = Arrays.copyOf(nodes, 2 * nodes.length);
+                planeDistances = Arrays.copyOf(planeDistances, 2 * planeDistances.length);
+            }
+
+            //Descends first on the side of the query, then on the other side only
+            //if the splitting plane is closer than the farthest neighbour kept
+            final double difference = point[node.axis] - node.x[node.axis];
+            final Node near = difference < 0 ? node.left : node.right;
+            final Node far = difference < 0 ? node.right : node.left;
+
+            if (far != null) {
+                nodes[size] = far;
+                planeDistances[size++] = difference * difference;
+            }
+            if (near != null) {
+                nodes[size] = near;
+                planeDistances[size++] = 0;
+            }
+        }
+
+    }
+
+    private void rebuild() {
+
+        final List<Node> nodes = new ArrayList<>(this.nodeBySample.size());
+        for (Node node : this.nodeBySample.values()) {
+            node.left = null;
+            node.right = null;
+            nodes.add(node);
+        }
+
+        this.root = build(nodes, 0, nodes.size(), 0);
+        this.deletedCount = 0;
+
+    }
+
+    /** Builds a balanced subtree over nodes[from, to), splitting at the median
+     * of the given axis. Search only needs the nodes on the left not to be
+     * greater than the median and those on the right not to be smaller, so
+     * ties may fall on either side.
+     */
+    private Node build(final List<Node> nodes, final int from, final int to, final int axis) {
+
+        if (from >= to) {
+            return null;
+        }
+
+        final int median = (from + to) >>> 1;
+        select(nodes, from, to - 1, median, axis);
+
+        final Node node = nodes.get(median);
+        node.axis = axis;
+        node.size = to - from;
+        node.left = build(nodes, from, median, (axis + 1) % this.dimensions);
+        node.right = build(nodes, median + 1, to, (axis + 1) % this.dimensions);
+        return node;
+
+    }
+
+    /** Quickselect: reorders nodes[left, right] so that the node at index k
+     * has the coordinate it would have if they were sorted on the axis.
+     */
+    private static void select(final List<Node> nodes, int left, int right, final int k, final int axis) {
+
+        while (left < right) {
+
+            final double pivot = nodes.get((left + right) >>> 1).x[axis];
+            int i = left;
+            int j = right;
+
+            while (i <= j) {
+                while (nodes.get(i).x[axis] < pivot) {
+                    ++i;
+                }
+                while (nodes.get(j).x[axis] > pivot) {
+                    --j;
+                }
+                if (i <= j) {
+                    swap(nodes, i++, j--);
+                }
+            }
+
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+
+        }
+
+    }
+
+    private static void swap(final List<Node> nodes, final int i, final int j) {
+        nodes.set(i, nodes.set(j, nodes.get(i)));
+    }
+
+    private void checkDimensions(final Sample sample) {
+        if (sample.getX().length != this.dimensions) {
+            throw new IllegalArgumentException("Expected " + this.dimensions + " features, got "
+                    + sample.getX().length);
+        }
+    }
+
+    private static final class Node {
+
+        private final Sample sample;
+        private final double[] x;
+        private int axis;
+        //Nodes of the subtree, deleted ones included
+        private int size;
+        private Node left;
+        private Node right;
+        private boolean deleted;
+
+        private Node(final Sample sample) {
+            this.sample = sample;
+            this.x = sample.getX();
+            this.axis = 0;
+            this.size = 1;
+            this.left = null;
+            this.right = null;
+            this.deleted = false;
+        }
+
+    }
+
+}
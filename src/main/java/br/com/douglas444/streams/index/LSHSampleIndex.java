@@ -0,0 +1,287 @@
+package br.com.douglas444.streams.index;
+
+import br.com.douglas444.streams.datastructures.Sample;
+import br.com.douglas444.streams.distance.DistanceKernels;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/** Approximate index for high dimensionalities based on locality-sensitive
+ * hashing with random projections (E2LSH). Each of the tables hashes a sample
+ * by projecting it on hashesPerTable random gaussian directions and cutting
+ * every projection in intervals of width bucketWidth, so that close samples
+ * tend to fall in the same bucket. Queries only compute the exact distance to
+ * the samples sharing a bucket with the query in some table.
+ *
+ * Queries may miss some of the true neighbours. When the buckets of the
+ * query hold fewer than k samples, nearest falls back to a linear scan of
+ * the others, so that like any SampleIndex it returns k samples, or all of
+ * them if the index holds less, and never null for a non-empty index. Radius
+ * queries have no such fallback and may miss samples within the radius.
+ *
+ * More tables raise the recall at the cost of memory and query time, while
+ * more hashes per table or narrower buckets make the buckets smaller,
+ * lowering both the query time and the recall. The bucket width should be of the order of the distance to the
+ * neighbours being searched. measureRecall can be used to choose these
+ * parameters on a sample of the stream.
+ */
+public class LSHSampleIndex implements SampleIndex {
+
+    private final int dimensions;
+    private final int tables;
+    private final int hashesPerTable;
+    private final double bucketWidth;
+
+    //The j-th projection of table i is at (i * hashesPerTable + j) * dimensions
+    private final double[] directions;
+    private final double[] offsets;
+
+    private final List<Map<Long, List<Sample>>> buckets;
+    private final Map<Sample, long[]> keysBySample;
+
+    public LSHSampleIndex(final int dimensions,
+                          final int tables,
+                          final int hashesPerTable,
+                          final double bucketWidth,
+                          final Random random) {
+
+        if (dimensions < 1 || tables < 1 || hashesPerTable < 1 || !(bucketWidth > 0)) {
+            throw new IllegalArgumentException();
+        }
+
+        this.dimensions = dimensions;
+        this.tables = tables;
+        this.hashesPerTable = hashesPerTable;
+        this.bucketWidth = bucketWidth;
+
+        this.directions = new double[tables * hashesPerTable * dimensions];
+        this.offsets = new double[tables * hashesPerTable];
+        for (int i = 0; i < this.directions.length; ++i) {
+            this.directions[i] = random.nextGaussian();
+        }
+        for (int i = 0; i < this.offsets.length; ++i) {
+            this.offsets[i] = random.nextDouble() * bucketWidth;
+        }
+
+        this.buckets = new ArrayList<>(tables);
+        for (int i = 0; i < tables; ++i) {
+            this.buckets.add(new HashMap<>());
+        }
+        this.keysBySample = new IdentityHashMap<>();
+
+    }
+
+    @Override
+    public void insert(final Sample sample) {
+
+        this.checkDimensions(sample);
+
+        if (this.keysBySample.containsKey(sample)) {
+            return;
+        }
+
+        final long[] keys = this.hash(sample.getX());
+        this.keysBySample.put(sample, keys);
+
+        for (int i = 0; i < this.tables; ++i) {
+            this.buckets.get(i).computeIfAbsent(keys[i], key -> new ArrayList<>(1)).add(sample);
+        }
+
+    }
+
+    @Override
+    public boolean remove(final Sample sample) {
+
+        final long[] keys = this.keysBySample.remove(sample);
+        if (keys == null) {
+            return false;
+        }
+
+        for (int i = 0; i < this.tables; ++i) {
+
+            final Map<Long, List<Sample>> table = this.buckets.get(i);
+            final List<Sample> bucket = table.get(keys[i]);
+
+            for (int j = bucket.size() - 1; j >= 0; --j) {
+                if (bucket.get(j) == sample) {
+                    bucket.set(j, bucket.get(bucket.size() - 1));
+                    bucket.remove(bucket.size() - 1);
+                    break;
+                }
+            }
+
+            if (bucket.isEmpty()) {
+                table.remove(keys[i]);
+            }
+        }
+
+        return true;
+
+    }
+
+    @Override
+    public int size() {
+        return this.keysBySample.size();
+    }
+
+    @Override
+    public List<Neighbour> nearest(final Sample query, final int k) {
+
+        if (k < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.checkDimensions(query);
+        final NeighbourCollector collector = new NeighbourCollector(k, Double.POSITIVE_INFINITY);
+        final Set<Sample> visited = this.search(query.getX(), collector);
+
+        if (collector.size() < Math.min(k, this.size())) {
+            for (Sample sample : this.keysBySample.keySet()) {
+                if (!visited.contains(sample)) {
+                    this.offer(query.getX(), sample, collector);
+                }
+            }
+        }
+
+        return collector.toList();
+
+    }
+
+    @Override
+    public List<Neighbour> withinRadius(final Sample query, final double radius) {
+
+        if (radius < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.checkDimensions(query);
+        final NeighbourCollector collector = new NeighbourCollector(Integer.MAX_VALUE, radius * radius);
+        this.search(query.getX(), collector);
+        return collector.toList();
+
+    }
+
+    /** Returns the fraction of the true k nearest neighbours of the queries,
+     * found by a linear scan of the indexed samples, that nearest(query, k)
+     * returns. Neighbours tied in distance with the k-th are counted as
+     * found, so that ties do not lower the recall.
+     */
+    public double measureRecall(final List<Sample> queries, final int k) {
+
+        if (k < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        long expected = 0;
+        long found = 0;
+
+        for (Sample query : queries) {
+
+            this.checkDimensions(query);
+
+            final NeighbourCollector collector = new NeighbourCollector(k, Double.POSITIVE_INFINITY);
+            for (Sample sample : this.keysBySample.keySet()) {
+                collector.offer(sample, DistanceKernels.get().squaredEuclidean(query.getX(), sample.getX()));
+            }
+            final List<Neighbour> exact = collector.toList();
+
+            if (exact.isEmpty()) {
+                continue;
+            }
+
+            final double farthest = exact.get(exact.size() - 1).getDistance();
+            expected += exact.size();
+
+            for (Neighbour neighbour : this.nearest(query, k)) {
+                if (neighbour.getDistance() <= farthest) {
+                    ++found;
+                }
+            }
+        }
+
+        return expected == 0 ? 1 : (double) found / expected;
+
+    }
+
+    /** Offers the samples sharing a bucket with the point in some table,
+     * returning them.
+     */
+    private Set<Sample> search(final double[] point, final NeighbourCollector collector) {
+
+        final long[] keys = this.hash(point);
+        final Set<Sample> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (int i = 0; i < this.tables; ++i) {
+
+            final List<Sample> bucket = this.buckets.get(i).get(keys[i]);
+            if (bucket == null) {
+                continue;
+            }
+
+            for (Sample sample : bucket) {
+                if (visited.add(sample)) {
+                    this.offer(point, sample, collector);
+                }
+            }
+        }
+
+        return visited;
+
+    }
+
+    private void offer(final double[] point, final Sample sample, final NeighbourCollector collector) {
+
+        final double bound = collector.getBound();
+        final double distanceSquared = DistanceKernels.get()
+                .squaredEuclidean(point, 0, sample.getX(), 0, this.dimensions, bound);
+        if (distanceSquared <= bound) {
+            collector.offer(sample, distanceSquared);
+        }
+
+    }
+
+    /** Returns the bucket key of the point in each table, combining the
+     * interval indexes of its projections.
+     */
+    private long[] hash(final double[] point) {
+
+        final long[] keys = new long[this.tables];
+
+        for (int i = 0; i < this.tables; ++i) {
+
+            long key = 1;
+
+            for (int j = 0; j < this.hashesPerTable; ++j) {
+
+                final int projection = i * this.hashesPerTable + j;
+                final int offset = projection * this.dimensions;
+
+                double dot = 0;
+                for (int l = 0; l < this.dimensions; ++l) {
+                    dot += this.directions[offset + l] * point[l];
+                }
+
+                key = key * 0x9E3779B97F4A7C15L + (long) Math.floor((dot + this.offsets[projection]) / this.bucketWidth);
+            }
+
+            keys[i] = key;
+        }
+
+        return keys;
+
+    }
+
+    private void checkDimensions(final Sample sample) {
+        if (sample.getX().length != this.dimensions) {
+            throw new IllegalArgumentException("Expected " + this.dimensions + " features, got "
+                    + sample.getX().length);
+        }
+    }
+
+}
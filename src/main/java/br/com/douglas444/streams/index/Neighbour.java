@@ -0,0 +1,25 @@
+package br.com.douglas444.streams.index;
+
+import br.com.douglas444.streams.datastructures.Sample;
+
+/** Sample found by a query, with its distance to the query.
+ */
+public class Neighbour {
+
+    private final Sample sample;
+    private final double distance;
+
+    public Neighbour(final Sample sample, final double distance) {
+        this.sample = sample;
+        this.distance = distance;
+    }
+
+    public Sample getSample() {
+        return sample;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+}
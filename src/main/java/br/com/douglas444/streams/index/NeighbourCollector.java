@@ -0,0 +1,71 @@
+package br.com.douglas444.streams.index;
+
+import br.com.douglas444.streams.datastructures.Sample;
+import br.com.douglas444.streams.distance.TopKHeap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Keeps the k closest samples offered so far in a {@link TopKHeap} over the
+ * slots of a sample array, the slot of a replaced sample being reused by the
+ * one replacing it. With k = Integer.MAX_VALUE and a radius, it collects every
+ * sample within the radius instead.
+ */
+final class NeighbourCollector {
+
+    private final TopKHeap heap;
+    private Sample[] samples;
+
+    NeighbourCollector(final int k, final double radiusSquared) {
+        this.heap = new TopKHeap(k, radiusSquared);
+        this.samples = new Sample[Math.min(k, 16)];
+    }
+
+    /** Squared distance beyond which offered samples are rejected.
+     */
+    double getBound() {
+        return this.heap.getBound();
+    }
+
+    /** Number of samples kept so far.
+     */
+    int size() {
+        return this.heap.size();
+    }
+
+    void offer(final Sample sample, final double distanceSquared) {
+
+        if (!this.heap.accepts(distanceSquared)) {
+            return;
+        }
+
+        final int slot = this.heap.isFull() ? this.heap.getFarthestIndex() : this.heap.size();
+        if (slot == this.samples.length) {
+            final int capacity = (int) Math.min(this.heap.getK(), 2L * this.samples.length);
+            this.samples = Arrays.copyOf(this.samples, capacity);
+        }
+
+        this.samples[slot] = sample;
+        this.heap.offer(slot, distanceSquared);
+
+    }
+
+    /** Empties the collector into a list sorted by increasing distance.
+     */
+    List<Neighbour> toList() {
+
+        final int size = this.heap.sort();
+        final List<Neighbour> neighbours = new ArrayList<>(size);
+
+        for (int i = 0; i < size; ++i) {
+            neighbours.add(new Neighbour(this.samples[this.heap.getIndex(i)], this.heap.getDistance(i)));
+        }
+
+        this.heap.clear();
+        Arrays.fill(this.samples, null);
+        return neighbours;
+
+    }
+
+}
@@ -0,0 +1,42 @@
+package br.com.douglas444.streams.index;
+
+import br.com.douglas444.streams.datastructures.Sample;
+
+import java.util.List;
+
+/** Index of samples answering nearest-neighbour and radius queries under the
+ * euclidean distance. Samples are identified by reference: removing a sample
+ * removes that very instance, not any equal one.
+ */
+public interface SampleIndex {
+
+    void insert(final Sample sample);
+
+    /** Removes the sample, returning whether it was in the index.
+     */
+    boolean remove(final Sample sample);
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** Returns the sample closest to the query, or null if the index is empty.
+     */
+    default Sample nearest(final Sample query) {
+        final List<Neighbour> neighbours = nearest(query, 1);
+        return neighbours.isEmpty() ? null : neighbours.get(0).getSample();
+    }
+
+    /** Returns the k samples closest to the query, closest first. Fewer are
+     * returned when the index holds less than k samples.
+     */
+    List<Neighbour> nearest(final Sample query, final int k);
+
+    /** Returns the samples within the given distance of the query, closest
+     * first.
+     */
+    List<Neighbour> withinRadius(final Sample query, final double radius);
+
+}
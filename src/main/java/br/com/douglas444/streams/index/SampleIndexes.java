@@ -0,0 +1,62 @@
+package br.com.douglas444.streams.index;
+
+import br.com.douglas444.streams.datastructures.Sample;
+import br.com.douglas444.streams.distance.TopKCandidateSearch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Creates the index best suited to the dimensionality of the samples: a
+ * KD-tree up to KD_TREE_MAXIMUM_DIMENSIONS dimensions, above which its
+ * pruning rarely discards anything, and a vantage-point tree otherwise.
+ */
+public final class SampleIndexes {
+
+    public static final int KD_TREE_MAXIMUM_DIMENSIONS = 12;
+
+    private SampleIndexes() {
+    }
+
+    public static SampleIndex create(final int dimensions) {
+
+        if (dimensions <= KD_TREE_MAXIMUM_DIMENSIONS) {
+            return new KDTreeSampleIndex(dimensions);
+        } else {
+            return new VPTreeSampleIndex(dimensions);
+        }
+
+    }
+
+    /** Builds an index over the samples, which must not be empty.
+     */
+    public static SampleIndex of(final List<Sample> samples) {
+
+        if (samples.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+
+        if (samples.get(0).getX().length <= KD_TREE_MAXIMUM_DIMENSIONS) {
+            return new KDTreeSampleIndex(samples);
+        } else {
+            return new VPTreeSampleIndex(samples);
+        }
+
+    }
+
+    /** Returns the k samples closest to the query among the given ones,
+     * closest first, with a linear scan that computes each distance once.
+     */
+    public static List<Neighbour> nearest(final Sample query, final List<Sample> samples, final int k) {
+
+        final TopKCandidateSearch search = new TopKCandidateSearch(k);
+        final int size = search.search(query.getX(), samples);
+
+        final List<Neighbour> neighbours = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            neighbours.add(new Neighbour(samples.get(search.getIndex(i)), search.getDistance(i)));
+        }
+        return neighbours;
+
+    }
+
+}
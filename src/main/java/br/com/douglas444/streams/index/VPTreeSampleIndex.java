@@ -0,0 +1,315 @@
+package br.com.douglas444.streams.index;
+
+import br.com.douglas444.streams.datastructures.Sample;
+import br.com.douglas444.streams.distance.DistanceKernels;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/** Vantage-point tree over samples, suited to dimensionalities where a
+ * KD-tree degenerates into a linear scan. Each node splits the samples below
+ * it by their distance to its own sample, at the median, and queries prune
+ * subtrees with the triangle inequality, which does not depend on the number
+ * of dimensions.
+ *
+ * A vantage-point tree cannot be kept balanced under single insertions, so
+ * inserted samples are kept in a buffer that is scanned linearly, and removed
+ * samples are only marked as deleted. The tree is rebuilt over all samples
+ * when the buffer grows past a fraction of the tree or when most of its nodes
+ * are deleted.
+ */
+public class VPTreeSampleIndex implements SampleIndex {
+
+    private static final int MINIMUM_REBUILD_SIZE = 32;
+    private static final int BUFFER_FRACTION = 8;
+
+    private final int dimensions;
+    private final Random random;
+    private final Map<Sample, Node> nodeBySample;
+    private final List<Sample> buffer;
+    private Node root;
+    private int treeSize;
+    private int deletedCount;
+
+    public VPTreeSampleIndex(final int dimensions) {
+        this(dimensions, new Random(0));
+    }
+
+    /** The random number generator chooses the vantage points.
+     */
+    public VPTreeSampleIndex(final int dimensions, final Random random) {
+
+        if (dimensions < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.dimensions = dimensions;
+        this.random = random;
+        this.nodeBySample = new IdentityHashMap<>();
+        this.buffer = new ArrayList<>();
+        this.root = null;
+        this.treeSize = 0;
+        this.deletedCount = 0;
+
+    }
+
+    public VPTreeSampleIndex(final List<Sample> samples) {
+
+        this(samples.get(0).getX().length);
+        samples.forEach(this::checkDimensions);
+
+        for (Sample sample : samples) {
+            if (!this.nodeBySample.containsKey(sample)) {
+                this.nodeBySample.put(sample, null);
+                this.buffer.add(sample);
+            }
+        }
+
+        this.rebuild();
+
+    }
+
+    @Override
+    public void insert(final Sample sample) {
+
+        this.checkDimensions(sample);
+
+        if (this.nodeBySample.containsKey(sample)) {
+            return;
+        }
+
+        //Buffered samples are mapped to null, as they have no node yet
+        this.nodeBySample.put(sample, null);
+        this.buffer.add(sample);
+
+        if (this.buffer.size() > Math.max(MINIMUM_REBUILD_SIZE, this.treeSize / BUFFER_FRACTION)) {
+            this.rebuild();
+        }
+
+    }
+
+    @Override
+    public boolean remove(final Sample sample) {
+
+        if (!this.nodeBySample.containsKey(sample)) {
+            return false;
+        }
+
+        final Node node = this.nodeBySample.remove(sample);
+
+        if (node == null) {
+            for (int i = this.buffer.size() - 1; i >= 0; --i) {
+                if (this.buffer.get(i) == sample) {
+                    this.buffer.set(i, this.buffer.get(this.buffer.size() - 1));
+                    this.buffer.remove(this.buffer.size() - 1);
+                    break;
+                }
+            }
+        } else {
+            node.deleted = true;
+            ++this.deletedCount;
+            if (this.deletedCount > Math.max(MINIMUM_REBUILD_SIZE, this.treeSize / 2)) {
+                this.rebuild();
+            }
+        }
+
+        return true;
+
+    }
+
+    @Override
+    public int size() {
+        return this.nodeBySample.size();
+    }
+
+    @Override
+    public List<Neighbour> nearest(final Sample query, final int k) {
+
+        if (k < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.checkDimensions(query);
+        final NeighbourCollector collector = new NeighbourCollector(k, Double.POSITIVE_INFINITY);
+        this.search(query.getX(), collector);
+        return collector.toList();
+
+    }
+
+    @Override
+    public List<Neighbour> withinRadius(final Sample query, final double radius) {
+
+        if (radius < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.checkDimensions(query);
+        final NeighbourCollector collector = new NeighbourCollector(Integer.MAX_VALUE, radius * radius);
+        this.search(query.getX(), collector);
+        return collector.toList();
+
+    }
+
+    private void search(final double[] point, final NeighbourCollector collector) {
+
+        for (Sample sample : this.buffer) {
+            final double bound = collector.getBound();
+            final double distanceSquared = DistanceKernels.get()
+                    .squaredEuclidean(point, 0, sample.getX(), 0, this.dimensions, bound);
+            if (distanceSquared <= bound) {
+                collector.offer(sample, distanceSquared);
+            }
+        }
+
+        this.search(this.root, point, collector);
+
+    }
+
+    private void search(final Node node, final double[] point, final NeighbourCollector collector) {
+
+        if (node == null) {
+            return;
+        }
+
+        //The exact distance is needed to prune, so it is not abandoned early
+        final double distance = DistanceKernels.get().euclidean(point, 0, node.x, 0, this.dimensions);
+
+        if (!node.deleted) {
+            collector.offer(node.sample, distance * distance);
+        }
+
+        if (distance < node.radius) {
+            this.search(node.inside, point, collector);
+            if (distance + Math.sqrt(collector.getBound()) >= node.radius) {
+                this.search(node.outside, point, collector);
+            }
+        } else {
+            this.search(node.outside, point, collector);
+            if (distance - Math.sqrt(collector.getBound()) <= node.radius) {
+                this.search(node.inside, point, collector);
+            }
+        }
+
+    }
+
+    private void rebuild() {
+
+        final List<Node> nodes = new ArrayList<>(this.nodeBySample.size());
+        for (Map.Entry<Sample, Node> entry : this.nodeBySample.entrySet()) {
+            final Node node = new Node(entry.getKey());
+            entry.setValue(node);
+            nodes.add(node);
+        }
+
+        this.root = this.build(nodes, 0, nodes.size());
+        this.buffer.clear();
+        this.treeSize = nodes.size();
+        this.deletedCount = 0;
+
+    }
+
+    /** Builds a subtree over nodes[from, to). A random node becomes the
+     * vantage point, and the others are split at the median of their distance
+     * to it: the closer half inside the radius, the farther half outside.
+     */
+    private Node build(final List<Node> nodes, final int from, final int to) {
+
+        if (from >= to) {
+            return null;
+        }
+
+        swap(nodes, from, from + this.random.nextInt(to - from));
+        final Node node = nodes.get(from);
+
+        if (to - from == 1) {
+            return node;
+        }
+
+        for (int i = from + 1; i < to; ++i) {
+            final Node other = nodes.get(i);
+            other.radius = DistanceKernels.get().euclidean(node.x, 0, other.x, 0, this.dimensions);
+        }
+
+        //The radius field of the other nodes holds their distance to the
+        //vantage point until they are built themselves
+        final int median = (from + 1 + to) >>> 1;
+        select(nodes, from + 1, to - 1, median);
+
+        node.radius = nodes.get(median).radius;
+        node.inside = this.build(nodes, from + 1, median);
+        node.outside = this.build(nodes, median, to);
+        return node;
+
+    }
+
+    /** Quickselect on the radius field: reorders nodes[left, right] so that
+     * the nodes before index k have no greater radius and the nodes after it
+     * no smaller one.
+     */
+    private static void select(final List<Node> nodes, int left, int right, final int k) {
+
+        while (left < right) {
+
+            final double pivot = nodes.get((left + right) >>> 1).radius;
+            int i = left;
+            int j = right;
+
+            while (i <= j) {
+                while (nodes.get(i).radius < pivot) {
+                    ++i;
+                }
+                while (nodes.get(j).radius > pivot) {
+                    --j;
+                }
+                if (i <= j) {
+                    swap(nodes, i++, j--);
+                }
+            }
+
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+
+        }
+
+    }
+
+    private static void swap(final List<Node> nodes, final int i, final int j) {
+        nodes.set(i, nodes.set(j, nodes.get(i)));
+    }
+
+    private void checkDimensions(final Sample sample) {
+        if (sample.getX().length != this.dimensions) {
+            throw new IllegalArgumentException("Expected " + this.dimensions + " features, got "
+                    + sample.getX().length);
+        }
+    }
+
+    private static final class Node {
+
+        private final Sample sample;
+        private final double[] x;
+        private double radius;
+        private Node inside;
+        private Node outside;
+        private boolean deleted;
+
+        private Node(final Sample sample) {
+            this.sample = sample;
+            this.x = sample.getX();
+            this.radius = 0;
+            this.inside = null;
+            this.outside = null;
+            this.deleted = false;
+        }
+
+    }
+
+}
@@ -0,0 +1,189 @@
+package br.com.douglas444.streams.log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Hands records over to another sink on a background thread, so that the
+ * thread producing them never waits for I/O. Records are queued in a bounded
+ * buffer and written in batches, the wrapped sink being flushed after each
+ * batch. When the buffer is full, new records are dropped and counted instead
+ * of blocking the producer.
+ */
+public class AsyncLogSink implements LogSink {
+
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final int MAXIMUM_BATCH_SIZE = 256;
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final LogSink logSink;
+    private final BlockingQueue<LogRecord> queue;
+    private final AtomicLong droppedCount;
+    private final AtomicLong queuedCount;
+    private final Object writtenLock;
+    private long writtenCount;
+    private final Thread thread;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+
+    public AsyncLogSink(final LogSink logSink) {
+        this(logSink, DEFAULT_CAPACITY);
+    }
+
+    public AsyncLogSink(final LogSink logSink, final int capacity) {
+
+        this.logSink = logSink;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.droppedCount = new AtomicLong(0);
+        this.queuedCount = new AtomicLong(0);
+        this.writtenLock = new Object();
+        this.writtenCount = 0;
+        this.closed = false;
+        this.failure = null;
+        this.thread = new Thread(this::drain, "async-log-sink");
+        this.thread.setDaemon(true);
+        this.thread.start();
+
+    }
+
+    private void drain() {
+
+        final List<LogRecord> batch = new ArrayList<>(MAXIMUM_BATCH_SIZE);
+
+        try {
+
+            while (!this.closed || !this.queue.isEmpty()) {
+
+                final LogRecord first = this.queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                this.queue.drainTo(batch, MAXIMUM_BATCH_SIZE - 1);
+
+                for (LogRecord record : batch) {
+                    this.logSink.log(record);
+                }
+                this.logSink.flush();
+
+                synchronized (this.writtenLock) {
+                    this.writtenCount += batch.size();
+                    this.writtenLock.notifyAll();
+                }
+                batch.clear();
+
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException | Error e) {
+            //Kept so that log and flush report it rather than dropping records silently
+            this.failure = e;
+        }
+
+    }
+
+    /** Queues the record without blocking. Rethrows the exception or error
+     * that made the background thread stop, if any.
+     */
+    @Override
+    public void log(final LogRecord record) throws IOException {
+
+        this.rethrowFailure();
+
+        if (this.closed) {
+            throw new IOException("Sink is closed");
+        }
+
+        if (this.queue.offer(record)) {
+            this.queuedCount.incrementAndGet();
+        } else {
+            this.droppedCount.incrementAndGet();
+        }
+
+    }
+
+    /** Waits until every record queued so far is written and the wrapped sink
+     * flushed. Rethrows the exception that made the background thread stop,
+     * if any.
+     */
+    @Override
+    public void flush() throws IOException {
+
+        final long queuedCount = this.queuedCount.get();
+
+        try {
+            synchronized (this.writtenLock) {
+                while (this.writtenCount < queuedCount && this.thread.isAlive()) {
+                    this.writtenLock.wait(POLL_TIMEOUT_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+
+        this.rethrowFailure();
+
+    }
+
+    /** Writes every queued record and closes the wrapped sink.
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+
+        try {
+            this.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            this.logSink.close();
+        }
+
+        this.rethrowFailure();
+
+    }
+
+    private void rethrowFailure() throws IOException {
+
+        final Throwable failure = this.failure;
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure != null) {
+            throw (Error) failure;
+        }
+
+    }
+
+        /** Number of records dropped because the buffer was full.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    @Override
+    public boolean isMessageRequired() {
+        return this.logSink.isMessageRequired();
+    }
+
+    @Override
+    public boolean areMetricsRequired() {
+        return this.logSink.areMetricsRequired();
+    }
+
+}
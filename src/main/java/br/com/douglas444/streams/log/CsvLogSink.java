@@ -0,0 +1,84 @@
+package br.com.douglas444.streams.log;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Writes one CSV line per record with its timestamp, its metrics and,
+ * optionally, its textual log. The metric columns are the ones of the first
+ * record.
+ */
+public class CsvLogSink implements LogSink {
+
+    private final BufferedWriter writer;
+    private final boolean includeMessage;
+    private List<String> columns;
+
+    public CsvLogSink(final Writer writer, final boolean includeMessage) {
+        this.writer = new BufferedWriter(writer);
+        this.includeMessage = includeMessage;
+        this.columns = null;
+    }
+
+    @Override
+    public void log(final LogRecord record) throws IOException {
+
+        if (this.columns == null) {
+            this.columns = new ArrayList<>(record.getMetrics().keySet());
+            this.writer.write("timestamp");
+            for (String column : this.columns) {
+                this.writer.write(',');
+                this.writer.write(column);
+            }
+            if (this.includeMessage) {
+                this.writer.write(",log");
+            }
+            this.writer.newLine();
+        }
+
+        this.writer.write(Long.toString(record.getTimestamp()));
+
+        for (String column : this.columns) {
+            this.writer.write(',');
+            final Double value = record.getMetrics().get(column);
+            if (value != null) {
+                this.writer.write(value.toString());
+            }
+        }
+
+        if (this.includeMessage) {
+            this.writer.write(',');
+            this.writer.write(quote(record.getMessage() != null ? record.getMessage() : ""));
+        }
+
+        this.writer.newLine();
+
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+
+    @Override
+    public boolean isMessageRequired() {
+        return includeMessage;
+    }
+
+    @Override
+    public boolean areMetricsRequired() {
+        return true;
+    }
+
+    private static String quote(final String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+}
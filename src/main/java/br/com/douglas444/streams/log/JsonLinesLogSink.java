@@ -0,0 +1,111 @@
+package br.com.douglas444.streams.log;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/** Writes one JSON object per line and record, in the form
+ * {"timestamp":1000,"metrics":{"name":0.5},"log":"..."}, the log being
+ * optional.
+ */
+public class JsonLinesLogSink implements LogSink {
+
+    private final BufferedWriter writer;
+    private final boolean includeMessage;
+
+    public JsonLinesLogSink(final Writer writer, final boolean includeMessage) {
+        this.writer = new BufferedWriter(writer);
+        this.includeMessage = includeMessage;
+    }
+
+    @Override
+    public void log(final LogRecord record) throws IOException {
+
+        final StringBuilder line = new StringBuilder();
+        line.append("{\"timestamp\":").append(record.getTimestamp()).append(",\"metrics\":{");
+
+        boolean first = true;
+        for (Map.Entry<String, Double> entry : record.getMetrics().entrySet()) {
+            if (!first) {
+                line.append(',');
+            }
+            first = false;
+            appendString(line, entry.getKey());
+            line.append(':');
+            final double value = entry.getValue();
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                line.append("null");
+            } else {
+                line.append(value);
+            }
+        }
+        line.append('}');
+
+        if (this.includeMessage && record.getMessage() != null) {
+            line.append(",\"log\":");
+            appendString(line, record.getMessage());
+        }
+
+        line.append('}');
+        this.writer.write(line.toString());
+        this.writer.newLine();
+
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+
+    @Override
+    public boolean isMessageRequired() {
+        return includeMessage;
+    }
+
+    @Override
+    public boolean areMetricsRequired() {
+        return true;
+    }
+
+    private static void appendString(final StringBuilder builder, final String value) {
+
+        builder.append('"');
+
+        for (int i = 0; i < value.length(); ++i) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+
+        builder.append('"');
+
+    }
+
+}
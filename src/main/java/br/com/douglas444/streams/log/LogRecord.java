@@ -0,0 +1,37 @@
+package br.com.douglas444.streams.log;
+
+import java.util.Collections;
+import java.util.Map;
+
+/** Snapshot of the state of a processor at a given timestamp of the stream,
+ * with its textual log and a set of named numeric metrics.
+ */
+public class LogRecord {
+
+    private final long timestamp;
+    private final String message;
+    private final Map<String, Double> metrics;
+
+    public LogRecord(final long timestamp, final String message, final Map<String, Double> metrics) {
+        this.timestamp = timestamp;
+        this.message = message;
+        this.metrics = Collections.unmodifiableMap(metrics);
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /** Textual log of the processor, or null if the sink did not require it.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /** Metrics in insertion order.
+     */
+    public Map<String, Double> getMetrics() {
+        return metrics;
+    }
+
+}
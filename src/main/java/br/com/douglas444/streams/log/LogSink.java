@@ -0,0 +1,31 @@
+package br.com.douglas444.streams.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface LogSink extends Closeable {
+
+    void log(final LogRecord record) throws IOException;
+
+    default void flush() throws IOException {
+    }
+
+    @Override
+    default void close() throws IOException {
+        flush();
+    }
+
+    /** Whether records must carry the textual log of the processor. When not,
+     * producers can skip building it, which may be expensive.
+     */
+    default boolean isMessageRequired() {
+        return true;
+    }
+
+    /** Whether records should carry metrics, which may be expensive to compute.
+     */
+    default boolean areMetricsRequired() {
+        return false;
+    }
+
+}
@@ -0,0 +1,25 @@
+package br.com.douglas444.streams.log;
+
+import java.io.PrintStream;
+
+/** Prints the textual log of each record, synchronously, to a print stream.
+ */
+public class PrintStreamLogSink implements LogSink {
+
+    private final PrintStream printStream;
+
+    public PrintStreamLogSink(final PrintStream printStream) {
+        this.printStream = printStream;
+    }
+
+    @Override
+    public void log(final LogRecord record) {
+        this.printStream.println(record.getMessage());
+    }
+
+    @Override
+    public void flush() {
+        this.printStream.flush();
+    }
+
+}
@@ -0,0 +1,111 @@
+package br.com.douglas444.streams.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Fixed-memory histogram of non-negative long values, such as latencies in
+ * nanoseconds. Values are counted in logarithmic buckets: every power of two
+ * is split into 16 linear sub-buckets, so recorded values are known within
+ * about 6% while the whole range of long needs fewer than a thousand
+ * counters.
+ *
+ * Values must be recorded by a single thread, but the histogram can be read
+ * concurrently by any thread.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount;
+    private final AtomicLong max;
+
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.totalCount = new AtomicLong(0);
+        this.max = new AtomicLong(0);
+    }
+
+    public void record(final long value) {
+
+        final int index = indexOf(Math.max(0, value));
+        this.counts.lazySet(index, this.counts.get(index) + 1);
+        this.totalCount.lazySet(this.totalCount.get() + 1);
+
+        if (value > this.max.get()) {
+            this.max.lazySet(value);
+        }
+
+    }
+
+    /** Returns an upper bound of the value below which the given percentage
+     * (0 to 100) of the recorded values fall, or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(final double percentile) {
+
+        final long totalCount = this.totalCount.get();
+
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long cumulativeCount = 0;
+
+        for (int i = 0; i < BUCKETS; ++i) {
+            cumulativeCount += this.counts.get(i);
+            if (cumulativeCount >= rank) {
+                return Math.min(upperBoundOf(i), this.max.get());
+            }
+        }
+
+        return this.max.get();
+
+    }
+
+    public long getTotalCount() {
+        return this.totalCount.get();
+    }
+
+    public long getMax() {
+        return this.max.get();
+    }
+
+    public void reset() {
+
+        for (int i = 0; i < BUCKETS; ++i) {
+            this.counts.set(i, 0);
+        }
+        this.totalCount.set(0);
+        this.max.set(0);
+
+    }
+
+    static int indexOf(final long value) {
+
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+
+    }
+
+    static long upperBoundOf(final int index) {
+
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        final int shift = index / SUB_BUCKETS - 1;
+        final long subBucket = index % SUB_BUCKETS;
+        final long upperBound = ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+        return upperBound < 0 ? Long.MAX_VALUE : upperBound;
+
+    }
+
+}
@@ -0,0 +1,121 @@
+package br.com.douglas444.streams.metrics;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/** Periodically appends a CSV line with a snapshot of a
+ * {@link StreamsProcessorMetrics} to a writer, on a background thread. The
+ * samples per second column is measured over the last period. A failed
+ * periodic write does not stop the following ones, and the first such
+ * failure is rethrown by close().
+ */
+public class MetricsCsvReporter implements Closeable {
+
+    private static final String HEADER = "elapsed_ms,samples,samples_per_second,parse_ms,process_ms,"
+            + "p50_ns,p90_ns,p99_ns,p999_ns,max_ns,allocated_bytes_per_second";
+
+    private final StreamsProcessorMetrics metrics;
+    private final BufferedWriter writer;
+    private final ScheduledExecutorService scheduler;
+    private volatile IOException failure;
+    private long lastSampleCount;
+    private long lastElapsedNanos;
+
+    public MetricsCsvReporter(final StreamsProcessorMetrics metrics,
+                              final Writer writer,
+                              final long period,
+                              final TimeUnit unit) throws IOException {
+
+        this.metrics = metrics;
+        this.writer = new BufferedWriter(writer);
+        this.lastSampleCount = 0;
+        this.lastElapsedNanos = 0;
+        this.failure = null;
+
+        this.writer.write(HEADER);
+        this.writer.newLine();
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "metrics-csv-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleAtFixedRate(this::reportPeriodically, period, period, unit);
+
+    }
+
+    /** Keeps the exception instead of throwing it, which would cancel the
+     * following reports without a trace.
+     */
+    private void reportPeriodically() {
+        try {
+            this.report();
+        } catch (IOException e) {
+            if (this.failure == null) {
+                this.failure = e;
+            }
+        }
+    }
+
+    /** Writes a line with the current values of the metrics.
+     */
+    public synchronized void report() throws IOException {
+
+        final long elapsedNanos = this.metrics.getElapsedNanos();
+        final long sampleCount = this.metrics.getSampleCount();
+        final double seconds = (elapsedNanos - this.lastElapsedNanos) / 1e9;
+
+        this.writer.write(String.format(Locale.ROOT, "%d,%d,%.1f,%d,%d,%d,%d,%d,%d,%d,%.1f",
+                elapsedNanos / 1_000_000,
+                sampleCount,
+                seconds > 0 ? (sampleCount - this.lastSampleCount) / seconds : 0.0,
+                this.metrics.getParseNanos() / 1_000_000,
+                this.metrics.getProcessNanos() / 1_000_000,
+                this.metrics.getProcessLatencyP50Nanos(),
+                this.metrics.getProcessLatencyP90Nanos(),
+                this.metrics.getProcessLatencyP99Nanos(),
+                this.metrics.getProcessLatencyP999Nanos(),
+                this.metrics.getProcessLatencyMaxNanos(),
+                this.metrics.getAllocatedBytesPerSecond()));
+        this.writer.newLine();
+        this.writer.flush();
+
+        this.lastSampleCount = sampleCount;
+        this.lastElapsedNanos = elapsedNanos;
+
+    }
+
+    /** Stops the periodic reports, writes a last one and closes the writer.
+     * Rethrows the first failure of a periodic report, if any.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+
+        this.scheduler.shutdownNow();
+
+        try {
+            this.report();
+        } finally {
+            this.writer.close();
+        }
+
+        final IOException failure = this.failure;
+        if (failure != null) {
+            throw failure;
+        }
+
+    }
+
+    /** First exception thrown by a periodic report, or null.
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+}
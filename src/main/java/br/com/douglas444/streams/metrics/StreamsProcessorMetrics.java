@@ -0,0 +1,171 @@
+package br.com.douglas444.streams.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Throughput and latency measurements of a run of a processor, recorded by
+ * the executor driving it. The time spent reading the next sample (parse time)
+ * and inside process (process time) are accumulated separately, and the
+ * latency of every call to process is kept in a {@link LatencyHistogram}. The
+ * allocation rate is the one of the thread running the processor, when the
+ * JVM is able to measure it.
+ *
+ * Measurements are recorded by a single thread but can be read from any
+ * thread, including through JMX once {@link #registerMBean(String)} is called.
+ */
+public class StreamsProcessorMetrics implements StreamsProcessorMetricsMBean {
+
+    private final LatencyHistogram processLatency;
+    private final AtomicLong sampleCount;
+    private final AtomicLong parseNanos;
+    private final AtomicLong processNanos;
+
+    private volatile long startNanos;
+    private volatile long threadId;
+    private volatile long startAllocatedBytes;
+
+    public StreamsProcessorMetrics() {
+        this.processLatency = new LatencyHistogram();
+        this.sampleCount = new AtomicLong(0);
+        this.parseNanos = new AtomicLong(0);
+        this.processNanos = new AtomicLong(0);
+        this.startNanos = System.nanoTime();
+        this.threadId = -1;
+        this.startAllocatedBytes = -1;
+    }
+
+    /** Marks the beginning of the run on the calling thread, which is the one
+     * that will record the measurements.
+     */
+    public void start() {
+        this.threadId = Thread.currentThread().getId();
+        this.startAllocatedBytes = allocatedBytes(this.threadId);
+        this.startNanos = System.nanoTime();
+    }
+
+    public void recordParse(final long nanos) {
+        this.parseNanos.lazySet(this.parseNanos.get() + nanos);
+    }
+
+    public void recordProcess(final long nanos) {
+        this.processNanos.lazySet(this.processNanos.get() + nanos);
+        this.processLatency.record(nanos);
+        this.sampleCount.lazySet(this.sampleCount.get() + 1);
+    }
+
+    public void registerMBean(final String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                new ObjectName("br.com.douglas444.streams:type=StreamsProcessorMetrics,name=" + name));
+    }
+
+    public void unregisterMBean(final String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+                new ObjectName("br.com.douglas444.streams:type=StreamsProcessorMetrics,name=" + name));
+    }
+
+    public long getElapsedNanos() {
+        return System.nanoTime() - this.startNanos;
+    }
+
+    @Override
+    public long getSampleCount() {
+        return this.sampleCount.get();
+    }
+
+    @Override
+    public double getSamplesPerSecond() {
+        return this.getSampleCount() / (this.getElapsedNanos() / 1e9);
+    }
+
+    @Override
+    public long getParseNanos() {
+        return this.parseNanos.get();
+    }
+
+    @Override
+    public long getProcessNanos() {
+        return this.processNanos.get();
+    }
+
+    @Override
+    public long getProcessLatencyP50Nanos() {
+        return this.processLatency.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getProcessLatencyP90Nanos() {
+        return this.processLatency.getValueAtPercentile(90);
+    }
+
+    @Override
+    public long getProcessLatencyP99Nanos() {
+        return this.processLatency.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getProcessLatencyP999Nanos() {
+        return this.processLatency.getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getProcessLatencyMaxNanos() {
+        return this.processLatency.getMax();
+    }
+
+    /** Bytes allocated by the thread of the run since it started, or -1 if
+     * the JVM cannot measure it.
+     */
+    public long getAllocatedBytes() {
+
+        final long allocatedBytes = allocatedBytes(this.threadId);
+
+        if (allocatedBytes < 0 || this.startAllocatedBytes < 0) {
+            return -1;
+        }
+
+        return allocatedBytes - this.startAllocatedBytes;
+
+    }
+
+    @Override
+    public double getAllocatedBytesPerSecond() {
+
+        final long allocatedBytes = this.getAllocatedBytes();
+        return allocatedBytes < 0 ? -1 : allocatedBytes / (this.getElapsedNanos() / 1e9);
+
+    }
+
+    public LatencyHistogram getProcessLatency() {
+        return processLatency;
+    }
+
+    @Override
+    public void reset() {
+        this.processLatency.reset();
+        this.sampleCount.set(0);
+        this.parseNanos.set(0);
+        this.processNanos.set(0);
+        this.startAllocatedBytes = allocatedBytes(this.threadId);
+        this.startNanos = System.nanoTime();
+    }
+
+    private static long allocatedBytes(final long threadId) {
+
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        if (threadId < 0 || !(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+
+        try {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(threadId);
+        } catch (UnsupportedOperationException e) {
+            return -1;
+        }
+
+    }
+
+}
@@ -0,0 +1,27 @@
+package br.com.douglas444.streams.metrics;
+
+public interface StreamsProcessorMetricsMBean {
+
+    long getSampleCount();
+
+    double getSamplesPerSecond();
+
+    long getParseNanos();
+
+    long getProcessNanos();
+
+    long getProcessLatencyP50Nanos();
+
+    long getProcessLatencyP90Nanos();
+
+    long getProcessLatencyP99Nanos();
+
+    long getProcessLatencyP999Nanos();
+
+    long getProcessLatencyMaxNanos();
+
+    double getAllocatedBytesPerSecond();
+
+    void reset();
+
+}
@@ -0,0 +1,138 @@
+package br.com.douglas444.streams.processor;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/** Converts delimited stream files, in the formats accepted by
+ * {@link StreamsFileReader}, into the binary format read by
+ * {@link BinaryStreamsFileReader}.
+ */
+public final class BinarySampleConverter {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private BinarySampleConverter() {
+    }
+
+    public static long convert(final char separator, final Path dataFile, final Path output) throws IOException {
+        return convert(separator, dataFile, null, output);
+    }
+
+    /** Writes the samples of dataFile, labeled by the lines of labelFile (or by
+     * the last field of each line when labelFile is null), to output.
+     *
+     * @return the number of converted samples.
+     */
+    public static long convert(final char separator,
+                               final Path dataFile,
+                               final Path labelFile,
+                               final Path output) throws IOException, NumberFormatException {
+
+        if (separator > 0x7F) {
+            throw new IllegalArgumentException("Separator must be an ASCII character");
+        }
+
+        final DelimitedRowParser rowParser = new DelimitedRowParser((byte) separator, labelFile == null);
+        final ByteLabelParser labelParser = new ByteLabelParser();
+
+        try (ByteLineReader dataLineReader = new ByteLineReader(Files.newInputStream(dataFile));
+             ByteLineReader labelLineReader = labelFile != null
+                     ? new ByteLineReader(Files.newInputStream(labelFile)) : null;
+             FileChannel channel = FileChannel.open(output,
+                     StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING,
+                     StandardOpenOption.WRITE)) {
+
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            channel.position(BinarySampleFormat.HEADER_SIZE);
+
+            int dimensions = -1;
+            long count = 0;
+
+            while (dataLineReader.nextLine()) {
+
+                final byte[] line = dataLineReader.getBuffer();
+                final int lineEnd = dataLineReader.getLineEnd();
+                final double[] row = rowParser.parse(line, dataLineReader.getLineStart(), lineEnd);
+
+                if (dimensions == -1) {
+                    dimensions = row.length;
+                } else if (row.length != dimensions) {
+                    throw new IOException("Line " + (count + 1) + " has " + row.length
+                            + " features, expected " + dimensions);
+                }
+
+                final int y;
+
+                if (labelLineReader != null) {
+                    if (!labelLineReader.nextLine()) {
+                        throw new IOException("Label file ended before the data file");
+                    }
+                    y = labelParser.parse(labelLineReader.getBuffer(),
+                            labelLineReader.getLineStart(),
+                            labelLineReader.getLineEnd());
+                } else {
+                    y = labelParser.parse(line, rowParser.getLabelStart(), lineEnd);
+                }
+
+                if (buffer.remaining() < BinarySampleFormat.recordSize(dimensions)) {
+                    flush(buffer, channel);
+                }
+
+                for (double value : row) {
+                    buffer.putDouble(value);
+                }
+                buffer.putInt(y);
+                buffer.putLong(0);
+
+                ++count;
+            }
+
+            flush(buffer, channel);
+            final long dictionaryOffset = channel.position();
+
+            final List<String> labels = labelParser.getLabels();
+            buffer.putInt(labels.size());
+            for (String label : labels) {
+                final byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < Integer.BYTES + bytes.length) {
+                    flush(buffer, channel);
+                }
+                buffer.putInt(bytes.length);
+                buffer.put(bytes);
+            }
+            flush(buffer, channel);
+
+            buffer.putInt(BinarySampleFormat.MAGIC);
+            buffer.putInt(BinarySampleFormat.VERSION);
+            buffer.putInt(Math.max(dimensions, 0));
+            buffer.putLong(count);
+            buffer.putLong(dictionaryOffset);
+            ((Buffer) buffer).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, buffer.position());
+            }
+
+            return count;
+        }
+
+    }
+
+    private static void flush(final ByteBuffer buffer, final FileChannel channel) throws IOException {
+
+        ((Buffer) buffer).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        ((Buffer) buffer).clear();
+
+    }
+
+}
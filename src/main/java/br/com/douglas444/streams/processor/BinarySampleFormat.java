@@ -0,0 +1,28 @@
+package br.com.douglas444.streams.processor;
+
+/** Layout of the binary sample files written by {@link BinarySampleConverter}
+ * and read by {@link BinaryStreamsFileReader}. All values are big-endian.
+ *
+ * <pre>
+ * header      int magic, int version, int dimensions, long count, long dictionaryOffset
+ * records     count x (dimensions x double features, int label, long timestamp)
+ * dictionary  int size, size x (int length, length bytes of UTF-8 label)
+ * </pre>
+ *
+ * The label of a record indexes the dictionary when it is not empty, and is
+ * the label itself otherwise (numeric labels).
+ */
+final class BinarySampleFormat {
+
+    static final int MAGIC = 0x534D504C;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 4 + 4 + 4 + 8 + 8;
+
+    private BinarySampleFormat() {
+    }
+
+    static int recordSize(final int dimensions) {
+        return dimensions * Double.BYTES + Integer.BYTES + Long.BYTES;
+    }
+
+}
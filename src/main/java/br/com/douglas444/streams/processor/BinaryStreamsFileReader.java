@@ -0,0 +1,157 @@
+package br.com.douglas444.streams.processor;
+
+import br.com.douglas444.streams.datastructures.Sample;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** Reads samples from a file written by {@link BinarySampleConverter}. The
+ * records are served straight from memory-mapped windows of the file, so no
+ * parsing happens and the label dictionary is loaded once from the file
+ * instead of being rebuilt while reading.
+ */
+public class BinaryStreamsFileReader implements StreamsReader, Closeable {
+
+    private static final int WINDOW_SIZE = 1 << 26;
+
+    private final FileChannel channel;
+    private final int dimensions;
+    private final long count;
+    private final List<String> labels;
+    private final int recordSize;
+    private final long recordsPerWindow;
+    private final double[] row;
+
+    private MappedByteBuffer window;
+    private long windowFirstRecord;
+    private long index;
+    private boolean closed;
+
+    public BinaryStreamsFileReader(final Path file) throws IOException {
+
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+
+        try {
+
+            final ByteBuffer header = this.channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    BinarySampleFormat.HEADER_SIZE);
+
+            if (header.getInt() != BinarySampleFormat.MAGIC) {
+                throw new IOException("Not a binary sample file: " + file);
+            }
+
+            final int version = header.getInt();
+            if (version != BinarySampleFormat.VERSION) {
+                throw new IOException("Unsupported binary sample file version: " + version);
+            }
+
+            this.dimensions = header.getInt();
+            this.count = header.getLong();
+            this.labels = readDictionary(this.channel, header.getLong());
+
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+
+        this.recordSize = BinarySampleFormat.recordSize(this.dimensions);
+        this.recordsPerWindow = Math.max(1, WINDOW_SIZE / this.recordSize);
+        this.row = new double[this.dimensions];
+        this.window = null;
+        this.windowFirstRecord = 0;
+        this.index = 0;
+        this.closed = false;
+
+    }
+
+    private static List<String> readDictionary(final FileChannel channel, final long offset) throws IOException {
+
+        final ByteBuffer dictionary = channel.map(FileChannel.MapMode.READ_ONLY, offset, channel.size() - offset);
+        final int size = dictionary.getInt();
+        final List<String> labels = new ArrayList<>(size);
+
+        for (int i = 0; i < size; ++i) {
+            final byte[] bytes = new byte[dictionary.getInt()];
+            dictionary.get(bytes);
+            labels.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        return Collections.unmodifiableList(labels);
+
+    }
+
+    @Override
+    public Sample next() throws IOException {
+
+        if (this.closed) {
+            return null;
+        }
+
+        if (this.index == this.count) {
+            this.close();
+            return null;
+        }
+
+        if (this.window == null || this.index - this.windowFirstRecord == this.recordsPerWindow) {
+            this.windowFirstRecord = this.index;
+            final long records = Math.min(this.recordsPerWindow, this.count - this.index);
+            this.window = this.channel.map(FileChannel.MapMode.READ_ONLY,
+                    BinarySampleFormat.HEADER_SIZE + this.index * this.recordSize,
+                    records * this.recordSize);
+        }
+
+        int position = (int) (this.index - this.windowFirstRecord) * this.recordSize;
+
+        for (int i = 0; i < this.dimensions; ++i) {
+            this.row[i] = this.window.getDouble(position);
+            position += Double.BYTES;
+        }
+
+        final int y = this.window.getInt(position);
+        final long t = this.window.getLong(position + Integer.BYTES);
+
+        ++this.index;
+
+        final Sample sample = new Sample(this.row, y);
+        sample.setT(t);
+        return sample;
+
+    }
+
+    /** Returns the textual labels of the original file, where the label at
+     * index i is the one that samples carry as i. Empty if the original labels
+     * were numeric.
+     */
+    public List<String> getLabels() {
+        return labels;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        if (!this.closed) {
+            this.closed = true;
+            this.window = null;
+            this.channel.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,115 @@
+package br.com.douglas444.streams.processor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Assigns consecutive integers to textual labels, in order of first
+ * appearance, looking them up directly from a byte range so that no String is
+ * created for labels that were already enumerated.
+ */
+final class ByteLabelEnumeration {
+
+    private byte[][] keys;
+    private int[] values;
+    private int size;
+
+    ByteLabelEnumeration() {
+        this.keys = new byte[16][];
+        this.values = new int[16];
+        this.size = 0;
+    }
+
+    int enumerate(final byte[] bytes, final int start, final int end) {
+
+        int slot = hash(bytes, start, end) & (this.keys.length - 1);
+
+        while (this.keys[slot] != null) {
+            if (equals(this.keys[slot], bytes, start, end)) {
+                return this.values[slot];
+            }
+            slot = (slot + 1) & (this.keys.length - 1);
+        }
+
+        final int value = this.size++;
+        this.keys[slot] = Arrays.copyOfRange(bytes, start, end);
+        this.values[slot] = value;
+
+        if (this.size * 2 > this.keys.length) {
+            this.rehash();
+        }
+
+        return value;
+
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Returns the enumerated labels, where the label at index i is the one
+     * enumerated as i.
+     */
+    List<String> getLabels() {
+
+        final String[] labels = new String[this.size];
+
+        for (int i = 0; i < this.keys.length; ++i) {
+            if (this.keys[i] != null) {
+                labels[this.values[i]] = new String(this.keys[i], StandardCharsets.UTF_8);
+            }
+        }
+
+        return new ArrayList<>(Arrays.asList(labels));
+
+    }
+
+    private void rehash() {
+
+        final byte[][] oldKeys = this.keys;
+        final int[] oldValues = this.values;
+
+        this.keys = new byte[oldKeys.length * 2][];
+        this.values = new int[oldValues.length * 2];
+
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != null) {
+                int slot = hash(oldKeys[i], 0, oldKeys[i].length) & (this.keys.length - 1);
+                while (this.keys[slot] != null) {
+                    slot = (slot + 1) & (this.keys.length - 1);
+                }
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+
+    }
+
+    private static int hash(final byte[] bytes, final int start, final int end) {
+
+        int hash = 1;
+        for (int i = start; i < end; ++i) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash ^ (hash >>> 16);
+
+    }
+
+    private static boolean equals(final byte[] key, final byte[] bytes, final int start, final int end) {
+
+        if (key.length != end - start) {
+            return false;
+        }
+
+        for (int i = 0; i < key.length; ++i) {
+            if (key[i] != bytes[start + i]) {
+                return false;
+            }
+        }
+
+        return true;
+
+    }
+
+}
@@ -0,0 +1,78 @@
+package br.com.douglas444.streams.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Converts labels read as bytes into integers. As in the text mode of
+ * {@link StreamsFileReader}, the first label decides whether labels are
+ * numeric or textual; textual labels are enumerated in order of appearance.
+ */
+final class ByteLabelParser {
+
+    private Boolean labelIsNaN;
+    private ByteLabelEnumeration labelEnumeration;
+
+    ByteLabelParser() {
+        this.labelIsNaN = null;
+    }
+
+    int parse(final byte[] bytes, final int start, final int end) throws NumberFormatException {
+
+        if (this.labelIsNaN == null) {
+            if (!isNumeric(bytes, start, end)) {
+                this.labelIsNaN = true;
+                this.labelEnumeration = new ByteLabelEnumeration();
+            } else {
+                this.labelIsNaN = false;
+            }
+        }
+
+        if (this.labelIsNaN) {
+            return this.labelEnumeration.enumerate(bytes, start, end);
+        } else {
+            return (int) FastDoubleParser.parseDouble(bytes, start, end);
+        }
+
+    }
+
+    /** Returns the textual labels enumerated so far, where the label at index
+     * i is the one parsed as i, or an empty list if labels are numeric.
+     */
+    List<String> getLabels() {
+        return this.labelEnumeration != null ? this.labelEnumeration.getLabels() : new ArrayList<>();
+    }
+
+    /** Byte-level equivalent of the pattern -?\d+(\.\d+)?
+     */
+    static boolean isNumeric(final byte[] bytes, final int start, final int end) {
+
+        int i = start;
+
+        if (i < end && bytes[i] == '-') {
+            ++i;
+        }
+
+        final int integerStart = i;
+        while (i < end && bytes[i] >= '0' && bytes[i] <= '9') {
+            ++i;
+        }
+
+        if (i == integerStart) {
+            return false;
+        }
+
+        if (i < end && bytes[i] == '.') {
+            final int fractionStart = ++i;
+            while (i < end && bytes[i] >= '0' && bytes[i] <= '9') {
+                ++i;
+            }
+            if (i == fractionStart) {
+                return false;
+            }
+        }
+
+        return i == end;
+
+    }
+
+}
@@ -0,0 +1,114 @@
+package br.com.douglas444.streams.processor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Reads lines from an input stream without decoding them into strings. After
+ * a successful call to {@link #nextLine()} the current line is available in
+ * {@link #getBuffer()} between {@link #getLineStart()} (inclusive) and
+ * {@link #getLineEnd()} (exclusive), without its line terminator. The buffer is
+ * reused, so its content is only valid until the next call to nextLine().
+ */
+final class ByteLineReader implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final InputStream inputStream;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private int lineStart;
+    private int lineEnd;
+    private boolean endOfStream;
+
+    ByteLineReader(final InputStream inputStream) {
+        this.inputStream = inputStream;
+        this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+        this.position = 0;
+        this.limit = 0;
+        this.endOfStream = false;
+    }
+
+    boolean nextLine() throws IOException {
+
+        int scan = this.position;
+
+        while (true) {
+
+            for (; scan < this.limit; ++scan) {
+                if (this.buffer[scan] == '\n') {
+                    this.setLine(this.position, scan);
+                    this.position = scan + 1;
+                    return true;
+                }
+            }
+
+            if (this.endOfStream) {
+                if (this.position < this.limit) {
+                    this.setLine(this.position, this.limit);
+                    this.position = this.limit;
+                    return true;
+                }
+                return false;
+            }
+
+            scan -= this.position;
+            this.fill();
+        }
+
+    }
+
+    private void setLine(final int start, int end) {
+
+        if (end > start && this.buffer[end - 1] == '\r') {
+            --end;
+        }
+
+        this.lineStart = start;
+        this.lineEnd = end;
+
+    }
+
+    private void fill() throws IOException {
+
+        if (this.position > 0) {
+            System.arraycopy(this.buffer, this.position, this.buffer, 0, this.limit - this.position);
+            this.limit -= this.position;
+            this.position = 0;
+        }
+
+        if (this.limit == this.buffer.length) {
+            final byte[] grown = new byte[this.buffer.length * 2];
+            System.arraycopy(this.buffer, 0, grown, 0, this.limit);
+            this.buffer = grown;
+        }
+
+        final int n = this.inputStream.read(this.buffer, this.limit, this.buffer.length - this.limit);
+
+        if (n == -1) {
+            this.endOfStream = true;
+        } else {
+            this.limit += n;
+        }
+
+    }
+
+    byte[] getBuffer() {
+        return buffer;
+    }
+
+    int getLineStart() {
+        return lineStart;
+    }
+
+    int getLineEnd() {
+        return lineEnd;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.inputStream.close();
+    }
+
+}
@@ -0,0 +1,72 @@
+package br.com.douglas444.streams.processor;
+
+/** Parses the features of a delimited line held in a byte array into a reused
+ * row buffer. When the label is the last field of the line, its position is
+ * made available through {@link #getLabelStart()}.
+ */
+final class DelimitedRowParser {
+
+    private final byte separator;
+    private final boolean labelInLine;
+    private double[] row;
+    private int labelStart;
+
+    DelimitedRowParser(final byte separator, final boolean labelInLine) {
+        this.separator = separator;
+        this.labelInLine = labelInLine;
+        this.row = new double[0];
+    }
+
+    /** Parses bytes[start, end) and returns the row buffer holding its
+     * features. The returned array is overwritten by the next call.
+     */
+    double[] parse(final byte[] line, final int start, final int end) throws NumberFormatException {
+
+        //When the label is the last field, features end at the last separator
+        int featuresEnd = end;
+        if (this.labelInLine) {
+            while (featuresEnd > start && line[featuresEnd - 1] != this.separator) {
+                --featuresEnd;
+            }
+            this.labelStart = featuresEnd;
+        }
+
+        final int numberOfFeatures = this.labelInLine
+                ? this.countFields(line, start, featuresEnd) - 1
+                : this.countFields(line, start, end);
+
+        if (this.row.length != numberOfFeatures) {
+            this.row = new double[numberOfFeatures];
+        }
+
+        int fieldStart = start;
+        for (int i = 0; i < numberOfFeatures; ++i) {
+            int fieldEnd = fieldStart;
+            while (fieldEnd < end && line[fieldEnd] != this.separator) {
+                ++fieldEnd;
+            }
+            this.row[i] = FastDoubleParser.parseDouble(line, fieldStart, fieldEnd);
+            fieldStart = fieldEnd + 1;
+        }
+
+        return this.row;
+
+    }
+
+    private int countFields(final byte[] line, final int start, final int end) {
+
+        int count = 1;
+        for (int i = start; i < end; ++i) {
+            if (line[i] == this.separator) {
+                ++count;
+            }
+        }
+        return count;
+
+    }
+
+    int getLabelStart() {
+        return labelStart;
+    }
+
+}
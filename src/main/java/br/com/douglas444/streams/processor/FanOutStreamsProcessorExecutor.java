@@ -0,0 +1,266 @@
+package br.com.douglas444.streams.processor;
+
+import br.com.douglas444.streams.datastructures.Sample;
+import br.com.douglas444.streams.log.LogSink;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** Runs several processors over the same streams, reading and parsing each
+ * sample only once. Samples are read in batches and every batch is handed to
+ * all processors at the same time on a pool of worker threads, while the next
+ * batch is being read. Each processor sees the samples in stream order and is
+ * never called by two threads at once.
+ *
+ * The same Sample instances are given to every processor, so processors must
+ * not modify them.
+ */
+public class FanOutStreamsProcessorExecutor {
+
+    private static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private final int parallelism;
+    private final int batchSize;
+    private volatile boolean alive;
+    private volatile List<ProcessorState> states;
+    private volatile long readCount;
+
+    public FanOutStreamsProcessorExecutor() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE);
+    }
+
+    public FanOutStreamsProcessorExecutor(final int parallelism, final int batchSize) {
+
+        if (parallelism < 1 || batchSize < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.alive = false;
+        this.states = new ArrayList<>();
+        this.readCount = 0;
+
+    }
+
+    /** Stops reading the streams. Processors finish the batch they are on.
+     */
+    public void interrupt() {
+        this.alive = false;
+    }
+
+    /** Stops feeding samples to the processor at the given index of the list
+     * passed to start. The other processors are not affected.
+     */
+    public void cancel(final int index) {
+        this.states.get(index).cancelled = true;
+    }
+
+    /** Number of samples of the current or last run read from the streams.
+     */
+    public long getReadCount() {
+        return readCount;
+    }
+
+    /** Number of samples of the current or last run already processed by the
+     * processor at the given index of the list passed to start.
+     */
+    public long getProcessedCount(final int index) {
+        return this.states.get(index).processedCount;
+    }
+
+    public List<ProcessorRunResult> start(final List<StreamsProcessor> streamsProcessors,
+                                          final StreamsReader... streamsReader) throws IOException {
+        return start(streamsProcessors, Collections.nCopies(streamsProcessors.size(), null), 0, streamsReader);
+    }
+
+    /** Like start, but also writes the log of each processor to the sink at
+     * the same index, or to none if it is null, every
+     * classifierLoggingTimestampInterval samples. A sink is only called from
+     * the thread running its processor, so it needs to be thread-safe only if
+     * it is shared by several processors. It is flushed at the end of the run,
+     * and an exception it throws stops its processor as a failure of it.
+     */
+    public List<ProcessorRunResult> start(final List<StreamsProcessor> streamsProcessors,
+                                          final List<LogSink> logSinks,
+                                          final int classifierLoggingTimestampInterval,
+                                          final StreamsReader... streamsReader) throws IOException {
+
+        if (logSinks.size() != streamsProcessors.size()) {
+            throw new IllegalArgumentException("Expected " + streamsProcessors.size() + " log sinks, got "
+                    + logSinks.size());
+        }
+
+        final List<ProcessorState> states = new ArrayList<>();
+        for (int i = 0; i < streamsProcessors.size(); ++i) {
+            states.add(new ProcessorState(streamsProcessors.get(i), logSinks.get(i),
+                    classifierLoggingTimestampInterval));
+        }
+
+        this.states = states;
+        this.readCount = 0;
+        this.alive = true;
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            final Thread thread = new Thread(runnable, "fan-out-streams-processor-executor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+
+            final List<Future<?>> pending = new ArrayList<>();
+            SampleBatch current = new SampleBatch(this.batchSize);
+            SampleBatch next = new SampleBatch(this.batchSize);
+
+            for (StreamsReader f : streamsReader) {
+
+                //A batch that is not full means the reader is exhausted
+                boolean exhausted = false;
+                while (this.alive && !exhausted && next.fill(f) > 0) {
+
+                    exhausted = !next.isFull();
+                    this.readCount += next.size();
+                    await(pending);
+
+                    final SampleBatch swap = current;
+                    current = next;
+                    next = swap;
+
+                    final SampleBatch batch = current;
+                    states.forEach(state -> pending.add(executorService.submit(() -> state.process(batch))));
+
+                }
+
+                if (!this.alive && f instanceof PrefetchingStreamsReader) {
+                    ((PrefetchingStreamsReader) f).interrupt();
+                }
+            }
+
+            await(pending);
+
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        final List<ProcessorRunResult> results = new ArrayList<>();
+
+        for (ProcessorState state : states) {
+            state.flush();
+        }
+
+        for (ProcessorState state : states) {
+            results.add(new ProcessorRunResult(
+                    state.streamsProcessor,
+                    state.processedCount,
+                    state.predictionCount,
+                    state.elapsedNanos,
+                    state.cancelled,
+                    state.failure,
+                    state.failure == null ? state.streamsProcessor.getLog() : null));
+        }
+
+        return results;
+
+    }
+
+    private static void await(final List<Future<?>> futures) throws IOException {
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            //Processor failures are caught by ProcessorState, so this is unexpected
+            throw new IllegalStateException(e.getCause());
+        }
+
+        futures.clear();
+
+    }
+
+    private static final class ProcessorState {
+
+        private final StreamsProcessor streamsProcessor;
+        private final LogSink logSink;
+        private final int classifierLoggingTimestampInterval;
+        private volatile boolean cancelled;
+        private volatile long processedCount;
+        private long predictionCount;
+        private long elapsedNanos;
+        private RuntimeException failure;
+
+        private ProcessorState(final StreamsProcessor streamsProcessor,
+                               final LogSink logSink,
+                               final int classifierLoggingTimestampInterval) {
+            this.streamsProcessor = streamsProcessor;
+            this.logSink = logSink;
+            this.classifierLoggingTimestampInterval = classifierLoggingTimestampInterval;
+            this.cancelled = false;
+            this.processedCount = 0;
+            this.predictionCount = 0;
+            this.elapsedNanos = 0;
+            this.failure = null;
+        }
+
+        private void process(final SampleBatch batch) {
+
+            if (this.cancelled || this.failure != null) {
+                return;
+            }
+
+            final long start = System.nanoTime();
+
+            try {
+                for (int i = 0; i < batch.size() && !this.cancelled; ++i) {
+                    final Sample sample = batch.get(i);
+                    final Optional<Integer> prediction = this.streamsProcessor.process(sample);
+                    if (prediction.isPresent()) {
+                        ++this.predictionCount;
+                    }
+                    ++this.processedCount;
+                    if (this.logSink != null && this.classifierLoggingTimestampInterval > 0
+                            && this.processedCount % this.classifierLoggingTimestampInterval == 0) {
+                        this.logSink.log(StreamsProcessorExecutor.createLogRecord(this.logSink,
+                                this.streamsProcessor, this.processedCount, null));
+                    }
+                }
+            } catch (RuntimeException e) {
+                this.failure = e;
+            } catch (IOException e) {
+                this.failure = new UncheckedIOException(e);
+            }
+
+            this.elapsedNanos += System.nanoTime() - start;
+
+        }
+
+        private void flush() {
+
+            if (this.logSink == null || this.failure != null) {
+                return;
+            }
+
+            try {
+                this.logSink.flush();
+            } catch (IOException e) {
+                this.failure = new UncheckedIOException(e);
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,135 @@
+package br.com.douglas444.streams.processor;
+
+import java.nio.charset.StandardCharsets;
+
+final class FastDoubleParser {
+
+    //Largest integer such that every smaller long is exactly representable as a double
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    //Powers of ten exactly representable as a double
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+            1e21, 1e22
+    };
+
+    private FastDoubleParser() {
+    }
+
+    /** Parses the ASCII decimal number held by bytes[start, end).
+     *
+     * Numbers whose significand fits in 53 bits and whose decimal exponent is
+     * within [-22, 22] are converted with a single multiplication or division,
+     * which is correctly rounded. Any other input (long significands, large
+     * exponents, NaN, Infinity, hexadecimal literals...) falls back to
+     * {@link Double#parseDouble(String)}, so the result is always identical to
+     * the one of the JDK.
+     *
+     * @throws NumberFormatException if the bytes do not represent a number.
+     */
+    static double parseDouble(final byte[] bytes, int start, int end) throws NumberFormatException {
+
+        while (start < end && bytes[start] <= ' ') {
+            ++start;
+        }
+
+        while (end > start && bytes[end - 1] <= ' ') {
+            --end;
+        }
+
+        int i = start;
+        boolean negative = false;
+
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            ++i;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+
+        while (i < end && isDigit(bytes[i])) {
+            anyDigit = true;
+            if (mantissa != 0 || bytes[i] != '0') {
+                if (++significantDigits > 18) {
+                    return fallback(bytes, start, end);
+                }
+                mantissa = mantissa * 10 + (bytes[i] - '0');
+            }
+            ++i;
+        }
+
+        if (i < end && bytes[i] == '.') {
+            ++i;
+            while (i < end && isDigit(bytes[i])) {
+                anyDigit = true;
+                if (mantissa != 0 || bytes[i] != '0') {
+                    if (++significantDigits > 18) {
+                        return fallback(bytes, start, end);
+                    }
+                    mantissa = mantissa * 10 + (bytes[i] - '0');
+                }
+                --exponent;
+                ++i;
+            }
+        }
+
+        if (!anyDigit) {
+            return fallback(bytes, start, end);
+        }
+
+        if (i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+
+            ++i;
+            boolean negativeExponent = false;
+
+            if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+                negativeExponent = bytes[i] == '-';
+                ++i;
+            }
+
+            if (i == end || end - i > 5) {
+                return fallback(bytes, start, end);
+            }
+
+            int explicitExponent = 0;
+            while (i < end && isDigit(bytes[i])) {
+                explicitExponent = explicitExponent * 10 + (bytes[i] - '0');
+                ++i;
+            }
+
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        if (i != end) {
+            return fallback(bytes, start, end);
+        }
+
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+
+        if (mantissa > MAX_EXACT_MANTISSA || exponent < -22 || exponent > 22) {
+            return fallback(bytes, start, end);
+        }
+
+        final double value = exponent >= 0
+                ? mantissa * POWERS_OF_TEN[exponent]
+                : mantissa / POWERS_OF_TEN[-exponent];
+
+        return negative ? -value : value;
+
+    }
+
+    private static boolean isDigit(final byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static double fallback(final byte[] bytes, final int start, final int end) {
+        return Double.parseDouble(new String(bytes, start, end - start, StandardCharsets.US_ASCII));
+    }
+
+}
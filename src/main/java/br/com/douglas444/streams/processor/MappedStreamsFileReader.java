@@ -0,0 +1,293 @@
+package br.com.douglas444.streams.processor;
+
+import br.com.douglas444.streams.datastructures.Sample;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** Reads a delimited stream file by memory-mapping it in chunks that end at
+ * line boundaries and parsing several chunks at once on a pool of worker
+ * threads. Samples are still returned one by one, in the order they appear in
+ * the file, and labels are resolved in that same order so that textual labels
+ * are enumerated exactly as {@link StreamsFileReader} does.
+ */
+public class MappedStreamsFileReader implements StreamsReader, Closeable {
+
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 23;
+
+    private final byte separator;
+    private final FileChannel dataChannel;
+    private final ByteLineReader labelLineReader;
+    private final long size;
+    private final int chunkSize;
+    private final int maximumChunksInFlight;
+    private final ExecutorService executorService;
+    private final ArrayDeque<Future<ParsedChunk>> pendingChunks;
+    private final ByteLabelParser labelParser;
+
+    private long nextChunkStart;
+    private ParsedChunk currentChunk;
+    private int currentIndex;
+    private boolean closed;
+
+    public MappedStreamsFileReader(final char separator, final Path dataFile) throws IOException {
+        this(separator, dataFile, null, Runtime.getRuntime().availableProcessors());
+    }
+
+    public MappedStreamsFileReader(final char separator,
+                                   final Path dataFile,
+                                   final Path labelFile) throws IOException {
+
+        this(separator, dataFile, labelFile, Runtime.getRuntime().availableProcessors());
+    }
+
+    public MappedStreamsFileReader(final char separator,
+                                   final Path dataFile,
+                                   final Path labelFile,
+                                   final int parallelism) throws IOException {
+
+        this(separator, dataFile, labelFile, parallelism, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param labelFile file with one label per line, or null if the label is
+     *                  the last field of each line of the data file.
+     * @param parallelism number of worker threads parsing chunks.
+     * @param chunkSize approximate size in bytes of each chunk.
+     */
+    public MappedStreamsFileReader(final char separator,
+                                   final Path dataFile,
+                                   final Path labelFile,
+                                   final int parallelism,
+                                   final int chunkSize) throws IOException {
+
+        if (separator > 0x7F) {
+            throw new IllegalArgumentException("Separator must be an ASCII character");
+        }
+
+        if (parallelism < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.separator = (byte) separator;
+        this.dataChannel = FileChannel.open(dataFile, StandardOpenOption.READ);
+        this.labelLineReader = labelFile != null ? new ByteLineReader(Files.newInputStream(labelFile)) : null;
+        this.size = this.dataChannel.size();
+        this.chunkSize = chunkSize;
+        this.maximumChunksInFlight = 2 * parallelism;
+        this.executorService = Executors.newFixedThreadPool(parallelism, runnable -> {
+            final Thread thread = new Thread(runnable, "mapped-streams-file-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pendingChunks = new ArrayDeque<>();
+        this.labelParser = new ByteLabelParser();
+        this.nextChunkStart = 0;
+        this.currentChunk = null;
+        this.currentIndex = 0;
+        this.closed = false;
+
+    }
+
+    @Override
+    public Sample next() throws IOException, NumberFormatException {
+
+        if (this.closed) {
+            return null;
+        }
+
+        while (this.currentChunk == null || this.currentIndex == this.currentChunk.size) {
+
+            this.scheduleChunks();
+
+            if (this.pendingChunks.isEmpty()) {
+                this.close();
+                return null;
+            }
+
+            this.currentChunk = this.await(this.pendingChunks.poll());
+            this.currentIndex = 0;
+            this.scheduleChunks();
+
+        }
+
+        final Sample sample = this.currentChunk.samples[this.currentIndex];
+        final int y;
+
+        if (this.labelLineReader != null) {
+            if (!this.labelLineReader.nextLine()) {
+                throw new IOException("Label file ended before the data file");
+            }
+            y = this.labelParser.parse(this.labelLineReader.getBuffer(),
+                    this.labelLineReader.getLineStart(),
+                    this.labelLineReader.getLineEnd());
+        } else {
+            y = this.labelParser.parse(this.currentChunk.bytes,
+                    this.currentChunk.labelStarts[this.currentIndex],
+                    this.currentChunk.labelEnds[this.currentIndex]);
+        }
+
+        sample.setY(y);
+        this.currentChunk.samples[this.currentIndex++] = null;
+        return sample;
+
+    }
+
+    /** Maps the next chunks of the file, each one ending right after a line
+     * break, and submits them to be parsed until the limit of chunks in flight
+     * is reached.
+     */
+    private void scheduleChunks() throws IOException {
+
+        while (this.pendingChunks.size() < this.maximumChunksInFlight && this.nextChunkStart < this.size) {
+
+            final long start = this.nextChunkStart;
+            long length = Math.min(this.chunkSize, this.size - start);
+            MappedByteBuffer buffer = this.dataChannel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            int chunkLength = lastLineEnd(buffer, (int) length);
+
+            while (chunkLength < 0 && start + length < this.size) {
+                length = Math.min(2 * length, this.size - start);
+                if (length > Integer.MAX_VALUE) {
+                    throw new IOException("Line starting at byte " + start + " is too long");
+                }
+                buffer = this.dataChannel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                chunkLength = lastLineEnd(buffer, (int) length);
+            }
+
+            if (start + length == this.size) {
+                chunkLength = (int) length;
+            }
+
+            final MappedByteBuffer chunk = buffer;
+            final int chunkEnd = chunkLength;
+            this.nextChunkStart = start + chunkLength;
+            this.pendingChunks.add(this.executorService.submit(() -> this.parse(chunk, chunkEnd)));
+
+        }
+
+    }
+
+    private static int lastLineEnd(final MappedByteBuffer buffer, final int length) {
+
+        for (int i = length - 1; i >= 0; --i) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return -1;
+
+    }
+
+    private ParsedChunk parse(final MappedByteBuffer buffer, final int length) throws NumberFormatException {
+
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes, 0, length);
+
+        int numberOfLines = 0;
+        for (int i = 0; i < length; ++i) {
+            if (bytes[i] == '\n') {
+                ++numberOfLines;
+            }
+        }
+        if (length > 0 && bytes[length - 1] != '\n') {
+            ++numberOfLines;
+        }
+
+        final boolean labelInLine = this.labelLineReader == null;
+        final DelimitedRowParser rowParser = new DelimitedRowParser(this.separator, labelInLine);
+        final ParsedChunk parsedChunk = new ParsedChunk(bytes, numberOfLines, labelInLine);
+
+        int lineStart = 0;
+        while (lineStart < length) {
+
+            int lineEnd = lineStart;
+            while (lineEnd < length && bytes[lineEnd] != '\n') {
+                ++lineEnd;
+            }
+
+            final int next = lineEnd + 1;
+            if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') {
+                --lineEnd;
+            }
+
+            final double[] row = rowParser.parse(bytes, lineStart, lineEnd);
+            if (labelInLine) {
+                parsedChunk.labelStarts[parsedChunk.size] = rowParser.getLabelStart();
+                parsedChunk.labelEnds[parsedChunk.size] = lineEnd;
+            }
+            parsedChunk.samples[parsedChunk.size++] = new Sample(row, null);
+
+            lineStart = next;
+        }
+
+        return parsedChunk;
+
+    }
+
+    private ParsedChunk await(final Future<ParsedChunk> future) throws IOException, NumberFormatException {
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+        this.pendingChunks.forEach(future -> future.cancel(true));
+        this.pendingChunks.clear();
+        this.currentChunk = null;
+        this.executorService.shutdownNow();
+        this.dataChannel.close();
+
+        if (this.labelLineReader != null) {
+            this.labelLineReader.close();
+        }
+
+    }
+
+    private static final class ParsedChunk {
+
+        private final byte[] bytes;
+        private final Sample[] samples;
+        private final int[] labelStarts;
+        private final int[] labelEnds;
+        private int size;
+
+        private ParsedChunk(final byte[] bytes, final int capacity, final boolean labelInLine) {
+            this.bytes = labelInLine ? bytes : null;
+            this.samples = new Sample[capacity];
+            this.labelStarts = labelInLine ? new int[capacity] : null;
+            this.labelEnds = labelInLine ? new int[capacity] : null;
+            this.size = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,211 @@
+package br.com.douglas444.streams.processor;
+
+import br.com.douglas444.streams.datastructures.Sample;
+import br.com.douglas444.streams.log.LogRecord;
+import br.com.douglas444.streams.log.LogSink;
+import br.com.douglas444.streams.log.PrintStreamLogSink;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Runs a processor over the streams like {@link StreamsProcessorExecutor},
+ * but with reading, processing and logging as three stages on their own
+ * threads, connected by single-producer/single-consumer ring buffers. The
+ * processor is only ever called from the thread that calls start(), and the
+ * log records are still produced by it, every
+ * classifierLoggingTimestampInterval samples, but they are written to the
+ * {@link LogSink} by the logging stage, which flushes it at the end of each
+ * run. As that stage already keeps the sink off the processing thread, the
+ * console is written to directly by default.
+ */
+public class PipelinedStreamsProcessorExecutor {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    //Marks the end of the stream in the ring buffers
+    private static final Sample END_OF_SAMPLES = new Sample(new double[0]);
+    private static final LogRecord END_OF_LOGS = new LogRecord(0, null, Collections.emptyMap());
+
+    private final int capacity;
+    private final LogSink logSink;
+    private volatile boolean alive;
+
+    private volatile RingBuffer<Sample> samples;
+    private volatile RingBuffer<LogRecord> logs;
+    private final AtomicLong readCount;
+    private final AtomicLong processedCount;
+    private final AtomicLong loggedCount;
+
+    public PipelinedStreamsProcessorExecutor() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PipelinedStreamsProcessorExecutor(final int capacity) {
+        this(new PrintStreamLogSink(System.out), capacity);
+    }
+
+    public PipelinedStreamsProcessorExecutor(final LogSink logSink) {
+        this(logSink, DEFAULT_CAPACITY);
+    }
+
+    public PipelinedStreamsProcessorExecutor(final LogSink logSink, final int capacity) {
+        this.capacity = capacity;
+        this.logSink = logSink;
+        this.alive = false;
+        this.readCount = new AtomicLong(0);
+        this.processedCount = new AtomicLong(0);
+        this.loggedCount = new AtomicLong(0);
+    }
+
+    public void interrupt() {
+        this.alive = false;
+    }
+
+    public boolean start(final StreamsProcessor streamsProcessor,
+                         final StreamsReader... streamsReader) throws IOException {
+        return start(streamsProcessor, 0, streamsReader);
+    }
+
+    public boolean start(final StreamsProcessor streamsProcessor,
+                         final int classifierLoggingTimestampInterval,
+                         final StreamsReader... streamsReader) throws IOException {
+
+        this.alive = true;
+        this.readCount.set(0);
+        this.processedCount.set(0);
+        this.loggedCount.set(0);
+
+        final RingBuffer<Sample> samples = new RingBuffer<>(this.capacity);
+        final RingBuffer<LogRecord> logs = new RingBuffer<>(this.capacity);
+        this.samples = samples;
+        this.logs = logs;
+
+        final Throwable[] readerException = new Throwable[1];
+        final Throwable[] loggerException = new Throwable[1];
+
+        final Thread readerThread = new Thread(() -> {
+            //Interrupted only once the processor stopped taking samples
+            boolean interrupted = false;
+            try {
+                Sample sample;
+                for (StreamsReader f : streamsReader) {
+                    while (this.alive && (sample = f.next()) != null) {
+                        samples.put(sample);
+                        this.readCount.lazySet(this.readCount.get() + 1);
+                    }
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (Throwable e) {
+                //Errors too, as the processor would otherwise wait for the end mark forever
+                readerException[0] = e;
+            } finally {
+                if (!interrupted) {
+                    try {
+                        samples.put(END_OF_SAMPLES);
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+            }
+        }, "pipeline-reader");
+
+        final Thread loggerThread = new Thread(() -> {
+            try {
+                LogRecord record;
+                while ((record = logs.take()) != END_OF_LOGS) {
+                    //After a failure the records are still taken, so that the processor never blocks
+                    if (loggerException[0] == null) {
+                        try {
+                            this.logSink.log(record);
+                        } catch (Throwable e) {
+                            loggerException[0] = e;
+                        }
+                    }
+                    this.loggedCount.lazySet(this.loggedCount.get() + 1);
+                }
+                if (loggerException[0] == null) {
+                    this.logSink.flush();
+                }
+            } catch (InterruptedException ignored) {
+            } catch (Throwable e) {
+                loggerException[0] = e;
+            }
+        }, "pipeline-logger");
+
+        readerThread.setDaemon(true);
+        loggerThread.setDaemon(true);
+        readerThread.start();
+        loggerThread.start();
+
+        try {
+
+            Sample sample;
+            int timestamp = 0;
+
+            while (this.alive && (sample = samples.take()) != END_OF_SAMPLES) {
+                ++timestamp;
+                streamsProcessor.process(sample);
+                this.processedCount.lazySet(this.processedCount.get() + 1);
+                if (classifierLoggingTimestampInterval > 0 && timestamp % classifierLoggingTimestampInterval == 0) {
+                    logs.put(StreamsProcessorExecutor.createLogRecord(this.logSink, streamsProcessor, timestamp,
+                            null));
+                }
+            }
+
+            logs.put(END_OF_LOGS);
+            loggerThread.join();
+            readerThread.interrupt();
+            readerThread.join();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            readerThread.interrupt();
+            loggerThread.interrupt();
+        }
+
+        final Throwable exception = readerException[0] != null ? readerException[0] : loggerException[0];
+        if (exception instanceof IOException) {
+            throw (IOException) exception;
+        } else if (exception instanceof RuntimeException) {
+            throw (RuntimeException) exception;
+        } else if (exception instanceof Error) {
+            throw (Error) exception;
+        } else if (exception != null) {
+            throw new IOException(exception);
+        }
+
+        return alive;
+    }
+
+    /** Returns the statistics of the reader, processor and logger stages, in
+     * this order, for the current or last run.
+     */
+    public List<StageStatistics> getStageStatistics() {
+
+        final RingBuffer<Sample> samples = this.samples;
+        final RingBuffer<LogRecord> logs = this.logs;
+
+        if (samples == null || logs == null) {
+            return Arrays.asList(
+                    new StageStatistics("reader", 0, 0, 0, 0),
+                    new StageStatistics("processor", 0, 0, 0, 0),
+                    new StageStatistics("logger", 0, 0, 0, 0));
+        }
+
+        return Arrays.asList(
+                new StageStatistics("reader", this.readCount.get(), 0, 0,
+                        samples.getProducerStalls()),
+                new StageStatistics("processor", this.processedCount.get(), samples.size(),
+                        samples.getConsumerStalls(), logs.getProducerStalls()),
+                new StageStatistics("logger", this.loggedCount.get(), logs.size(),
+                        logs.getConsumerStalls(), 0));
+
+    }
+
+}
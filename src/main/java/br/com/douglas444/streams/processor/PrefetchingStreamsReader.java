@@ -0,0 +1,202 @@
+package br.com.douglas444.streams.processor;
+
+import br.com.douglas444.streams.datastructures.Sample;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/** Wraps a reader so that its samples are read by a background thread into a
+ * bounded buffer while the caller consumes them, overlapping reading and
+ * parsing with processing. The background thread blocks while the buffer is
+ * full. An exception or error thrown by the wrapped reader is rethrown by
+ * next() once every sample read before it has been consumed.
+ *
+ * The background thread is started by the first call to next(), and closes
+ * the wrapped reader, if it is closeable, however reading ends.
+ */
+public class PrefetchingStreamsReader implements StreamsReader, Closeable {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    //Marks the end of the stream in the buffer
+    private static final Sample END_OF_STREAM = new Sample(new double[0]);
+
+    private final StreamsReader streamsReader;
+    private final BlockingQueue<Sample> buffer;
+    private Thread thread;
+    private volatile Throwable exception;
+    private volatile boolean interrupted;
+    private boolean endOfStream;
+
+    public PrefetchingStreamsReader(final StreamsReader streamsReader) {
+        this(streamsReader, DEFAULT_CAPACITY);
+    }
+
+    public PrefetchingStreamsReader(final StreamsReader streamsReader, final int capacity) {
+
+        this.streamsReader = streamsReader;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.exception = null;
+        this.interrupted = false;
+        this.endOfStream = false;
+        this.thread = null;
+
+    }
+
+    /** Starts the background thread unless it was started or the reader
+     * interrupted, returning whether it runs.
+     */
+    private synchronized boolean startThread() {
+
+        if (this.thread == null && !this.interrupted) {
+            this.thread = new Thread(this::prefetch, "prefetching-streams-reader");
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        return this.thread != null;
+
+    }
+
+    private void prefetch() {
+
+        try {
+
+            Sample sample;
+            while (!Thread.currentThread().isInterrupted() && (sample = this.streamsReader.next()) != null) {
+                this.buffer.put(sample);
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            //Errors too, as the consumer would otherwise wait for the end mark forever
+            this.exception = e;
+        } finally {
+            this.closeStreamsReader();
+            this.putEndOfStream();
+        }
+
+    }
+
+    private void closeStreamsReader() {
+
+        if (!(this.streamsReader instanceof Closeable)) {
+            return;
+        }
+
+        try {
+            ((Closeable) this.streamsReader).close();
+        } catch (IOException | RuntimeException e) {
+            if (this.exception == null) {
+                this.exception = e;
+            }
+        }
+
+    }
+
+    private void putEndOfStream() {
+
+        if (Thread.currentThread().isInterrupted()) {
+            //Nobody is going to consume what is left, so make room for the end mark
+            this.buffer.clear();
+            this.buffer.offer(END_OF_STREAM);
+            return;
+        }
+
+        try {
+            this.buffer.put(END_OF_STREAM);
+        } catch (InterruptedException e) {
+            this.buffer.clear();
+            this.buffer.offer(END_OF_STREAM);
+        }
+
+    }
+
+    @Override
+    public Sample next() throws IOException, NumberFormatException {
+
+        if (this.endOfStream || this.interrupted || !this.startThread()) {
+            return null;
+        }
+
+        final Sample sample;
+
+        try {
+            sample = this.buffer.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+
+        if (sample == END_OF_STREAM || this.interrupted) {
+
+            this.endOfStream = true;
+
+            final Throwable exception = this.exception;
+            if (exception instanceof IOException) {
+                throw (IOException) exception;
+            } else if (exception instanceof RuntimeException) {
+                throw (RuntimeException) exception;
+            } else if (exception instanceof Error) {
+                throw (Error) exception;
+            } else if (exception != null) {
+                throw new IOException(exception);
+            }
+
+            return null;
+        }
+
+        return sample;
+
+    }
+
+    /** Stops the background thread. Samples that were not consumed yet are
+     * discarded and next() returns null from then on.
+     */
+    public synchronized void interrupt() {
+
+        this.interrupted = true;
+        if (this.thread != null) {
+            this.thread.interrupt();
+        }
+
+    }
+
+    /** Interrupts the reader and waits until the wrapped reader is closed,
+     * closing it here if the background thread was never started.
+     */
+    @Override
+    public void close() throws IOException {
+
+        this.interrupt();
+
+        final Thread thread;
+        synchronized (this) {
+            thread = this.thread;
+        }
+
+        if (thread == null) {
+            if (this.streamsReader instanceof Closeable) {
+                ((Closeable) this.streamsReader).close();
+            }
+            return;
+        }
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+
+    }
+
+    public int getBufferedCount() {
+        return this.buffer.size();
+    }
+
+}
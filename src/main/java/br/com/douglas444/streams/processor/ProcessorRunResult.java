@@ -0,0 +1,72 @@
+package br.com.douglas444.streams.processor;
+
+/** Outcome of running one processor of a
+ * {@link FanOutStreamsProcessorExecutor}.
+ */
+public class ProcessorRunResult {
+
+    private final StreamsProcessor streamsProcessor;
+    private final long processedCount;
+    private final long predictionCount;
+    private final long elapsedNanos;
+    private final boolean cancelled;
+    private final RuntimeException failure;
+    private final String log;
+
+    ProcessorRunResult(final StreamsProcessor streamsProcessor,
+                       final long processedCount,
+                       final long predictionCount,
+                       final long elapsedNanos,
+                       final boolean cancelled,
+                       final RuntimeException failure,
+                       final String log) {
+
+        this.streamsProcessor = streamsProcessor;
+        this.processedCount = processedCount;
+        this.predictionCount = predictionCount;
+        this.elapsedNanos = elapsedNanos;
+        this.cancelled = cancelled;
+        this.failure = failure;
+        this.log = log;
+
+    }
+
+    public StreamsProcessor getStreamsProcessor() {
+        return streamsProcessor;
+    }
+
+    public long getProcessedCount() {
+        return processedCount;
+    }
+
+    /** Number of processed samples for which the processor returned a
+     * prediction.
+     */
+    public long getPredictionCount() {
+        return predictionCount;
+    }
+
+    /** Time spent inside the processor, excluding reading and waiting.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** Exception thrown by the processor or by its log sink, which stopped
+     * it, or null.
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    /** Log of the processor at the end of the run, or null if it failed.
+     */
+    public String getLog() {
+        return log;
+    }
+
+}
@@ -0,0 +1,134 @@
+package br.com.douglas444.streams.processor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/** Bounded single-producer/single-consumer ring buffer. The slots are
+ * preallocated once, and the producer and the consumer only coordinate through
+ * two sequence counters, so no lock is taken to hand a value over. A thread
+ * that finds the buffer full (producer) or empty (consumer) spins, then
+ * yields, then parks, and the number of such stalls is counted for each side.
+ */
+final class RingBuffer<T> {
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = 10_000;
+
+    private final Object[] slots;
+    private final int mask;
+
+    //Number of values published by the producer and consumed by the consumer
+    private final AtomicLong head;
+    private final AtomicLong tail;
+
+    //Last value seen of the counter owned by the other side
+    private long cachedTail;
+    private long cachedHead;
+
+    private final AtomicLong producerStalls;
+    private final AtomicLong consumerStalls;
+
+    RingBuffer(final int capacity) {
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+
+        this.slots = new Object[size];
+        this.mask = size - 1;
+        this.head = new AtomicLong(0);
+        this.tail = new AtomicLong(0);
+        this.cachedTail = 0;
+        this.cachedHead = 0;
+        this.producerStalls = new AtomicLong(0);
+        this.consumerStalls = new AtomicLong(0);
+
+    }
+
+    void put(final T value) throws InterruptedException {
+
+        final long head = this.head.get();
+
+        if (head - this.cachedTail == this.slots.length) {
+            this.cachedTail = this.tail.get();
+            if (head - this.cachedTail == this.slots.length) {
+                this.producerStalls.lazySet(this.producerStalls.get() + 1);
+                int tries = 0;
+                do {
+                    backOff(tries++);
+                    this.cachedTail = this.tail.get();
+                } while (head - this.cachedTail == this.slots.length);
+            }
+        }
+
+        this.slots[(int) head & this.mask] = value;
+        this.head.lazySet(head + 1);
+
+    }
+
+    @SuppressWarnings("unchecked")
+    T take() throws InterruptedException {
+
+        final long tail = this.tail.get();
+
+        if (tail == this.cachedHead) {
+            this.cachedHead = this.head.get();
+            if (tail == this.cachedHead) {
+                this.consumerStalls.lazySet(this.consumerStalls.get() + 1);
+                int tries = 0;
+                do {
+                    backOff(tries++);
+                    this.cachedHead = this.head.get();
+                } while (tail == this.cachedHead);
+            }
+        }
+
+        final int index = (int) tail & this.mask;
+        final T value = (T) this.slots[index];
+        this.slots[index] = null;
+        this.tail.lazySet(tail + 1);
+        return value;
+
+    }
+
+    private static void backOff(final int tries) throws InterruptedException {
+
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+
+        if (tries < SPIN_TRIES) {
+            return;
+        }
+
+        if (tries < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+
+    }
+
+    int size() {
+        return (int) (this.head.get() - this.tail.get());
+    }
+
+    int capacity() {
+        return this.slots.length;
+    }
+
+    long getProducerStalls() {
+        return this.producerStalls.get();
+    }
+
+    long getConsumerStalls() {
+        return this.consumerStalls.get();
+    }
+
+}
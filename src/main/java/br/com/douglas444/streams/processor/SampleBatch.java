@@ -0,0 +1,89 @@
+package br.com.douglas444.streams.processor;
+
+import br.com.douglas444.streams.datastructures.Sample;
+
+import java.io.IOException;
+
+/** Reusable container of consecutive samples of a stream, handed to
+ * {@link StreamsProcessor#processBatch(SampleBatch, int[])}.
+ */
+public class SampleBatch {
+
+    private final Sample[] samples;
+    private int size;
+
+    public SampleBatch(final int capacity) {
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.samples = new Sample[capacity];
+        this.size = 0;
+
+    }
+
+    public void add(final Sample sample) {
+
+        if (this.size == this.samples.length) {
+            throw new IllegalStateException("Batch is full");
+        }
+
+        this.samples[this.size++] = sample;
+
+    }
+
+    public void clear() {
+
+        for (int i = 0; i < this.size; ++i) {
+            this.samples[i] = null;
+        }
+        this.size = 0;
+
+    }
+
+    /** Fills the batch with the next samples of the reader, after clearing it.
+     *
+     * @return the number of samples read, which is only smaller than the
+     * capacity of the batch once the reader is exhausted.
+     */
+    public int fill(final StreamsReader streamsReader) throws IOException {
+
+        this.clear();
+
+        Sample sample;
+        while (this.size < this.samples.length && (sample = streamsReader.next()) != null) {
+            this.samples[this.size++] = sample;
+        }
+
+        return this.size;
+
+    }
+
+    public Sample get(final int index) {
+
+        if (index >= this.size) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        return this.samples[index];
+
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return samples.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == samples.length;
+    }
+
+}
@@ -0,0 +1,67 @@
+package br.com.douglas444.streams.processor;
+
+/** Snapshot of the counters of one stage of a
+ * {@link PipelinedStreamsProcessorExecutor}. A stage that often waits for
+ * input is starved by the previous one, while a stage that often waits for
+ * room in its output is held back by the next one; the stage that waits for
+ * neither is the bottleneck.
+ */
+public class StageStatistics {
+
+    private final String name;
+    private final long count;
+    private final int inputQueueDepth;
+    private final long inputStalls;
+    private final long outputStalls;
+
+    StageStatistics(final String name,
+                    final long count,
+                    final int inputQueueDepth,
+                    final long inputStalls,
+                    final long outputStalls) {
+
+        this.name = name;
+        this.count = count;
+        this.inputQueueDepth = inputQueueDepth;
+        this.inputStalls = inputStalls;
+        this.outputStalls = outputStalls;
+
+    }
+
+    @Override
+    public String toString() {
+        return name + "[count=" + count
+                + ", inputQueueDepth=" + inputQueueDepth
+                + ", inputStalls=" + inputStalls
+                + ", outputStalls=" + outputStalls + "]";
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Number of items handled by the stage.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /** Number of items waiting in the queue that feeds the stage.
+     */
+    public int getInputQueueDepth() {
+        return inputQueueDepth;
+    }
+
+    /** Number of times the stage waited for its input queue to be non-empty.
+     */
+    public long getInputStalls() {
+        return inputStalls;
+    }
+
+    /** Number of times the stage waited for its output queue to have room.
+     */
+    public long getOutputStalls() {
+        return outputStalls;
+    }
+
+}
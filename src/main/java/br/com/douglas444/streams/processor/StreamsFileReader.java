@@ -3,14 +3,16 @@ package br.com.douglas444.streams.processor;
 import br.com.douglas444.streams.datastructures.Sample;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.regex.Pattern;
 
-public class StreamsFileReader {
+public class StreamsFileReader implements StreamsReader, Closeable {
 
     private final String separator;
     private final BufferedReader bufferedReaderData;
@@ -18,6 +20,12 @@ public class StreamsFileReader {
     private Boolean labelIsNaN;
     private HashMap<String, Integer> labelEnumeration;
 
+    //Byte-level parsing mode
+    private final ByteLineReader byteLineReaderData;
+    private final ByteLineReader byteLineReaderLabel;
+    private final DelimitedRowParser rowParser;
+    private final ByteLabelParser labelParser;
+
     public StreamsFileReader(final String separator,
                              final Reader dataReader,
                              final Reader labelReader) {
@@ -26,6 +34,10 @@ public class StreamsFileReader {
         this.bufferedReaderData = new BufferedReader(dataReader);
         this.bufferedReaderLabel = new BufferedReader(labelReader);
         this.labelIsNaN = null;
+        this.byteLineReaderData = null;
+        this.byteLineReaderLabel = null;
+        this.rowParser = null;
+        this.labelParser = null;
     }
 
     public StreamsFileReader(final String separator, final Reader reader) {
@@ -34,11 +46,61 @@ public class StreamsFileReader {
         this.bufferedReaderData = new BufferedReader(reader);
         this.bufferedReaderLabel = null;
         this.labelIsNaN = null;
+        this.byteLineReaderData = null;
+        this.byteLineReaderLabel = null;
+        this.rowParser = null;
+        this.labelParser = null;
+
+    }
+
+    /** Creates a reader that scans the raw bytes of the streams instead of
+     * decoding and splitting lines. The separator must be a single ASCII
+     * character, and apart from the double[] held by each returned sample no
+     * allocation is made per line.
+     */
+    public StreamsFileReader(final char separator,
+                             final InputStream dataStream,
+                             final InputStream labelStream) {
+
+        if (separator > 0x7F) {
+            throw new IllegalArgumentException("Separator must be an ASCII character");
+        }
+
+        this.separator = String.valueOf(separator);
+        this.bufferedReaderData = null;
+        this.bufferedReaderLabel = null;
+        this.labelIsNaN = null;
+        this.byteLineReaderData = new ByteLineReader(dataStream);
+        this.byteLineReaderLabel = new ByteLineReader(labelStream);
+        this.rowParser = new DelimitedRowParser((byte) separator, false);
+        this.labelParser = new ByteLabelParser();
+
+    }
+
+    public StreamsFileReader(final char separator, final InputStream stream) {
+
+        if (separator > 0x7F) {
+            throw new IllegalArgumentException("Separator must be an ASCII character");
+        }
+
+        this.separator = String.valueOf(separator);
+        this.bufferedReaderData = null;
+        this.bufferedReaderLabel = null;
+        this.labelIsNaN = null;
+        this.byteLineReaderData = new ByteLineReader(stream);
+        this.byteLineReaderLabel = null;
+        this.rowParser = new DelimitedRowParser((byte) separator, true);
+        this.labelParser = new ByteLabelParser();
 
     }
 
+    @Override
     public Sample next() throws IOException, NumberFormatException {
 
+        if (this.byteLineReaderData != null) {
+            return this.nextFromBytes();
+        }
+
         String line = this.bufferedReaderData.readLine();
 
         if (line == null) {
@@ -89,6 +151,41 @@ public class StreamsFileReader {
 
     }
 
+    private Sample nextFromBytes() throws IOException, NumberFormatException {
+
+        if (!this.byteLineReaderData.nextLine()) {
+            this.byteLineReaderData.close();
+
+            if (this.byteLineReaderLabel != null) {
+                this.byteLineReaderLabel.close();
+            }
+
+            return null;
+        }
+
+        final byte[] line = this.byteLineReaderData.getBuffer();
+        final int lineEnd = this.byteLineReaderData.getLineEnd();
+        final double[] row = this.rowParser.parse(line, this.byteLineReaderData.getLineStart(), lineEnd);
+
+        final int y;
+
+        if (this.byteLineReaderLabel != null) {
+            if (!this.byteLineReaderLabel.nextLine()) {
+                throw new IOException("Label stream ended before the data stream");
+            }
+            y = this.labelParser.parse(this.byteLineReaderLabel.getBuffer(),
+                    this.byteLineReaderLabel.getLineStart(),
+                    this.byteLineReaderLabel.getLineEnd());
+        } else {
+            y = this.labelParser.parse(line, this.rowParser.getLabelStart(), lineEnd);
+        }
+
+        //The sample copies the row buffer, which is the only allocation per line
+        return new Sample(row, y);
+
+    }
+
+    @Override
     public List<Sample> next(final int n) throws IOException, NumberFormatException {
 
         final List<Sample> samples = new ArrayList<>();
@@ -98,6 +195,27 @@ public class StreamsFileReader {
         return samples;
     }
 
+    /** Closes the streams, which next() only does once they are over.
+     */
+    @Override
+    public void close() throws IOException {
+
+        try {
+            if (this.byteLineReaderData != null) {
+                this.byteLineReaderData.close();
+            } else {
+                this.bufferedReaderData.close();
+            }
+        } finally {
+            if (this.byteLineReaderLabel != null) {
+                this.byteLineReaderLabel.close();
+            } else if (this.bufferedReaderLabel != null) {
+                this.bufferedReaderLabel.close();
+            }
+        }
+
+    }
+
     private boolean isNumeric(final String str) {
 
         Pattern pattern = Pattern.compile("-?\\d+(\\.\\d+)?");
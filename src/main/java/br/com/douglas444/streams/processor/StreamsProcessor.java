@@ -6,8 +6,25 @@ import java.util.Optional;
 
 public interface StreamsProcessor {
 
+    //Value set in the predictions of processBatch for samples without prediction
+    int NO_PREDICTION = Integer.MIN_VALUE;
+
     Optional<Integer> process(final Sample sample);
 
+    /** Processes the samples of the batch in order, writing the prediction for
+     * the i-th sample to predictions[i], or NO_PREDICTION when there is none.
+     * Processors that can handle many samples at once should override this
+     * method; the default implementation calls process for each sample.
+     */
+    default void processBatch(final SampleBatch batch, final int[] predictions) {
+
+        for (int i = 0; i < batch.size(); ++i) {
+            final Optional<Integer> prediction = this.process(batch.get(i));
+            predictions[i] = prediction.isPresent() ? prediction.get() : NO_PREDICTION;
+        }
+
+    }
+
     String getLog();
 
 }
@@ -4,4 +4,12 @@ public interface StreamsProcessorBuilder {
 
     StreamsProcessor build();
 
+    /** Builds a processor whose randomness is driven by the given seed.
+     * Builders of randomized processors should override this method; the
+     * default implementation ignores the seed.
+     */
+    default StreamsProcessor build(final long seed) {
+        return build();
+    }
+
 }
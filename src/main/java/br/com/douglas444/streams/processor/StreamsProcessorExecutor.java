@@ -1,15 +1,54 @@
 package br.com.douglas444.streams.processor;
 
+import br.com.douglas444.streams.datastructures.DynamicConfusionMatrix;
+import br.com.douglas444.streams.datastructures.DynamicConfusionMatrixCompatible;
 import br.com.douglas444.streams.datastructures.Sample;
+import br.com.douglas444.streams.log.AsyncLogSink;
+import br.com.douglas444.streams.log.LogRecord;
+import br.com.douglas444.streams.log.LogSink;
+import br.com.douglas444.streams.log.PrintStreamLogSink;
+import br.com.douglas444.streams.metrics.StreamsProcessorMetrics;
 
 import java.io.IOException;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class StreamsProcessorExecutor {
 
     private boolean alive;
+    private final LogSink logSink;
+    private final StreamsProcessorMetrics metrics;
 
     public StreamsProcessorExecutor() {
+        this(System.out);
+    }
+
+    public StreamsProcessorExecutor(final PrintStream logStream) {
+        this(logStream, null);
+    }
+
+    public StreamsProcessorExecutor(final PrintStream logStream, final StreamsProcessorMetrics metrics) {
+        this(new PrintStreamLogSink(logStream), metrics);
+    }
+
+    public StreamsProcessorExecutor(final LogSink logSink) {
+        this(logSink, null);
+    }
+
+    /**
+     * @param logSink where the logs of the processor are written every
+     *                classifierLoggingTimestampInterval samples. The sink is
+     *                called from the processing thread, so wrap slow sinks in
+     *                an {@link AsyncLogSink}. It is flushed at the end of
+     *                each run.
+     * @param metrics where the time spent reading and processing each sample
+     *                is recorded, or null to run without instrumentation.
+     */
+    public StreamsProcessorExecutor(final LogSink logSink, final StreamsProcessorMetrics metrics) {
         this.alive = false;
+        this.logSink = logSink;
+        this.metrics = metrics;
     }
 
     public void interrupt() {
@@ -17,27 +56,168 @@ public class StreamsProcessorExecutor {
     }
 
     public boolean start(final StreamsProcessor streamsProcessor,
-                         final StreamsFileReader... streamsFileReader) throws IOException {
-        return start(streamsProcessor, 0, streamsFileReader);
+                         final StreamsReader... streamsReader) throws IOException {
+        return start(streamsProcessor, 0, streamsReader);
     }
-    public boolean start(final StreamsProcessor streamsProcessor, final int classifierLoggingTimestampInterval, final StreamsFileReader... streamsFileReader)
+    public boolean start(final StreamsProcessor streamsProcessor, final int classifierLoggingTimestampInterval, final StreamsReader... streamsReader)
             throws IOException {
 
+        if (this.metrics != null) {
+            return this.startInstrumented(streamsProcessor, classifierLoggingTimestampInterval, streamsReader);
+        }
+
         this.alive = true;
         Sample sample;
         int timestamp = 0;
 
-        for (StreamsFileReader f : streamsFileReader) {
+        for (StreamsReader f : streamsReader) {
             while (this.alive && (sample = f.next()) != null) {
                 ++timestamp;
                 streamsProcessor.process(sample);
                 if (classifierLoggingTimestampInterval > 0 && timestamp % classifierLoggingTimestampInterval == 0) {
-                    System.out.println(streamsProcessor.getLog());
+                    this.log(streamsProcessor, timestamp);
+                }
+            }
+            if (!this.alive && f instanceof PrefetchingStreamsReader) {
+                ((PrefetchingStreamsReader) f).interrupt();
+            }
+        }
+
+        this.logSink.flush();
+        return alive;
+    }
+
+    private boolean startInstrumented(final StreamsProcessor streamsProcessor,
+                                      final int classifierLoggingTimestampInterval,
+                                      final StreamsReader... streamsReader) throws IOException {
+
+        this.alive = true;
+        this.metrics.start();
+        Sample sample;
+        int timestamp = 0;
+
+        for (StreamsReader f : streamsReader) {
+            while (this.alive) {
+
+                final long beforeNext = System.nanoTime();
+                sample = f.next();
+                final long afterNext = System.nanoTime();
+                this.metrics.recordParse(afterNext - beforeNext);
+
+                if (sample == null) {
+                    break;
+                }
+
+                ++timestamp;
+                streamsProcessor.process(sample);
+                this.metrics.recordProcess(System.nanoTime() - afterNext);
+
+                if (classifierLoggingTimestampInterval > 0 && timestamp % classifierLoggingTimestampInterval == 0) {
+                    this.log(streamsProcessor, timestamp);
+                }
+            }
+            if (!this.alive && f instanceof PrefetchingStreamsReader) {
+                ((PrefetchingStreamsReader) f).interrupt();
+            }
+        }
+
+        this.logSink.flush();
+        return alive;
+    }
+
+    /** Like start, but reads the streams in batches of batchSize samples and
+     * hands each batch to {@link StreamsProcessor#processBatch}. Batches never
+     * span two readers. The log is printed after the batch in which the
+     * timestamp reaches a multiple of classifierLoggingTimestampInterval.
+     * When instrumented, every sample of a batch is recorded with the mean
+     * latency of the batch.
+     */
+    public boolean startBatched(final StreamsProcessor streamsProcessor,
+                                final int batchSize,
+                                final int classifierLoggingTimestampInterval,
+                                final StreamsReader... streamsReader) throws IOException {
+
+        this.alive = true;
+        if (this.metrics != null) {
+            this.metrics.start();
+        }
+        final SampleBatch batch = new SampleBatch(batchSize);
+        final int[] predictions = new int[batchSize];
+        int timestamp = 0;
+
+        for (StreamsReader f : streamsReader) {
+            //A batch that is not full means the reader is exhausted
+            boolean exhausted = false;
+            while (this.alive && !exhausted) {
+
+                final long beforeFill = System.nanoTime();
+                if (batch.fill(f) == 0) {
+                    break;
+                }
+                final long afterFill = System.nanoTime();
+
+                exhausted = !batch.isFull();
+                final int previousTimestamp = timestamp;
+                timestamp += batch.size();
+                streamsProcessor.processBatch(batch, predictions);
+
+                if (this.metrics != null) {
+                    this.metrics.recordParse(afterFill - beforeFill);
+                    final long latency = (System.nanoTime() - afterFill) / batch.size();
+                    for (int i = 0; i < batch.size(); ++i) {
+                        this.metrics.recordProcess(latency);
+                    }
+                }
+
+                if (classifierLoggingTimestampInterval > 0 && timestamp / classifierLoggingTimestampInterval
+                        > previousTimestamp / classifierLoggingTimestampInterval) {
+                    this.log(streamsProcessor, timestamp);
                 }
             }
+            if (!this.alive && f instanceof PrefetchingStreamsReader) {
+                ((PrefetchingStreamsReader) f).interrupt();
+            }
         }
 
+        batch.clear();
+        this.logSink.flush();
         return alive;
     }
 
+    private void log(final StreamsProcessor streamsProcessor, final long timestamp) throws IOException {
+        this.logSink.log(createLogRecord(this.logSink, streamsProcessor, timestamp, this.metrics));
+    }
+
+    /** Builds the record of the processor at the given timestamp, with only
+     * the message and metrics the sink requires.
+     *
+     * @param metrics the instrumentation of the run, or null.
+     */
+    static LogRecord createLogRecord(final LogSink logSink,
+                                     final StreamsProcessor streamsProcessor,
+                                     final long timestamp,
+                                     final StreamsProcessorMetrics metrics) {
+
+        final String message = logSink.isMessageRequired() ? streamsProcessor.getLog() : null;
+        final Map<String, Double> values = new LinkedHashMap<>();
+
+        if (logSink.areMetricsRequired()) {
+
+            if (streamsProcessor instanceof DynamicConfusionMatrixCompatible) {
+                final DynamicConfusionMatrix dynamicConfusionMatrix =
+                        ((DynamicConfusionMatrixCompatible) streamsProcessor).getDynamicConfusionMatrix();
+                values.put("cer", dynamicConfusionMatrix.measureCER());
+                values.put("unkr", dynamicConfusionMatrix.measureUnkR());
+            }
+
+            if (metrics != null) {
+                values.put("samples_per_second", metrics.getSamplesPerSecond());
+                values.put("process_latency_p99_ns", (double) metrics.getProcessLatencyP99Nanos());
+            }
+        }
+
+        return new LogRecord(timestamp, message, values);
+
+    }
+
 }
@@ -0,0 +1,24 @@
+package br.com.douglas444.streams.processor;
+
+import br.com.douglas444.streams.datastructures.Sample;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public interface StreamsReader {
+
+    /** Returns the next sample of the stream, or null once the stream is over.
+     */
+    Sample next() throws IOException, NumberFormatException;
+
+    default List<Sample> next(final int n) throws IOException, NumberFormatException {
+
+        final List<Sample> samples = new ArrayList<>();
+        for (int i = 0; i < n; ++i) {
+            samples.add(next());
+        }
+        return samples;
+    }
+
+}